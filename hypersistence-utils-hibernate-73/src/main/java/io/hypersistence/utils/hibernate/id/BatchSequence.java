@@ -34,6 +34,48 @@ public @interface BatchSequence {
      */
     int fetchSize() default BatchSequenceGenerator.DEFAULT_FETCH_SIZE;
 
+    /**
+     * Returns the smallest block size the adaptive fetch size can shrink to.
+     * Only used when {@link #maxFetchSize()} is set.
+     *
+     * @return the smallest block size, must be positive and not greater than the fetch size
+     */
+    int minFetchSize() default 1;
+
+    /**
+     * Returns the largest block size the adaptive fetch size can grow to. When set, the fetch size
+     * is only the initial block size, and the following ones adapt to the rate at which identifiers
+     * are consumed.
+     *
+     * @return the largest block size, {@code 0} disables the adaptive fetch size
+     */
+    int maxFetchSize() default 0;
+
+    /**
+     * Returns the number of identifiers left in the current block at which the next block
+     * is fetched in the background using a separate database connection.
+     *
+     * @return the prefetch threshold, must be smaller than the fetch size, {@code 0} disables prefetching
+     */
+    int prefetchThreshold() default 0;
+
+    /**
+     * Returns whether this generator fetches its next block together with the other coordinated
+     * generators of the same {@code SessionFactory}, in a single round trip.
+     *
+     * @return {@code true} if the sequence values are fetched in a coordinated manner
+     */
+    boolean coordinated() default false;
+
+    /**
+     * Returns whether the sequence is incremented by the fetch size, in which case a single sequence value
+     * reserves a whole block of identifiers. The sequence must be created with {@code INCREMENT BY} the fetch size,
+     * which is what the schema management tool does when this option is enabled.
+     *
+     * @return {@code true} if a block is fetched with a single sequence call
+     */
+    boolean incrementByFetchSize() default false;
+
     /**
      * Returns the catalog name of the sequence to use.
      * 
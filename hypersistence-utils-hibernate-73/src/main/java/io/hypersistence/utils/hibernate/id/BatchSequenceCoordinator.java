@@ -0,0 +1,151 @@
+package io.hypersistence.utils.hibernate.id;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerationException;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * The {@code BatchSequenceCoordinator} fetches the next blocks of the coordinated
+ * {@link BatchSequenceGenerator} instances of a given {@code SessionFactory} in a single round trip.
+ * <p>
+ * When a coordinated generator runs out of identifiers, the other coordinated generators that already
+ * started consuming their current block get their next block fetched by the same {@code UNION ALL} query.
+ *
+ * @author Vlad Mihalcea
+ */
+final class BatchSequenceCoordinator {
+
+    private static final Map<SessionFactoryImplementor, BatchSequenceCoordinator> COORDINATORS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Set<BatchSequenceGenerator> generators = new CopyOnWriteArraySet<>();
+
+    private BatchSequenceCoordinator() {
+    }
+
+    /**
+     * Get the coordinator of the given {@code SessionFactory}.
+     *
+     * @param sessionFactory the session factory
+     * @return the coordinator
+     */
+    static BatchSequenceCoordinator forSessionFactory(SessionFactoryImplementor sessionFactory) {
+        return COORDINATORS.computeIfAbsent(sessionFactory, key -> new BatchSequenceCoordinator());
+    }
+
+    /**
+     * Register the generator so that its next block can be fetched along with the other coordinated generators.
+     *
+     * @param generator the coordinated generator
+     */
+    void register(BatchSequenceGenerator generator) {
+        if (!this.generators.contains(generator)) {
+            this.generators.add(generator);
+        }
+    }
+
+    /**
+     * Fetch the next block of the requesting generator, along with the next blocks of the other
+     * coordinated generators that need one.
+     *
+     * @param requester the generator that ran out of identifiers
+     * @param session the current session
+     * @return the next block of the requesting generator or {@code null} if it should be fetched individually
+     */
+    long[] replenish(BatchSequenceGenerator requester, SharedSessionContractImplementor session) {
+        Dialect dialect = session.getJdbcServices().getDialect();
+        if (this.generators.size() < 2 || !BatchSequenceGenerator.supportsCoordinatedSelect(dialect)) {
+            return null;
+        }
+        List<BatchSequenceGenerator> coordinatedGenerators = new ArrayList<>();
+        List<CompletableFuture<long[]>> nextBlocks = new ArrayList<>();
+        coordinatedGenerators.add(requester);
+        for (BatchSequenceGenerator generator : this.generators) {
+            if (generator != requester) {
+                CompletableFuture<long[]> nextBlock = generator.claimNextBlock();
+                if (nextBlock != null) {
+                    coordinatedGenerators.add(generator);
+                    nextBlocks.add(nextBlock);
+                }
+            }
+        }
+        if (nextBlocks.isEmpty()) {
+            return null;
+        }
+        try {
+            long[][] blocks = fetchBlocks(coordinatedGenerators, dialect, session);
+            for (int i = 0; i < nextBlocks.size(); i++) {
+                nextBlocks.get(i).complete(blocks[i + 1]);
+            }
+            return blocks[0];
+        } catch (RuntimeException e) {
+            for (CompletableFuture<long[]> nextBlock : nextBlocks) {
+                nextBlock.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private long[][] fetchBlocks(
+            List<BatchSequenceGenerator> coordinatedGenerators,
+            Dialect dialect,
+            SharedSessionContractImplementor session) {
+        int generatorCount = coordinatedGenerators.size();
+        List<String> nextValStrings = new ArrayList<>(generatorCount);
+        int[] blockSizes = new int[generatorCount];
+        int[] fetchSizes = new int[generatorCount];
+        long[][] blocks = new long[generatorCount][];
+        for (int i = 0; i < generatorCount; i++) {
+            BatchSequenceGenerator generator = coordinatedGenerators.get(i);
+            nextValStrings.add(generator.getSequenceNextValString());
+            blockSizes[i] = generator.nextFetchSize();
+            fetchSizes[i] = generator.sequenceValueCount(blockSizes[i]);
+            blocks[i] = new long[fetchSizes[i]];
+        }
+        BatchSequenceGenerator.CoordinatedSelect select = BatchSequenceGenerator.buildCoordinatedSelect(
+            nextValStrings, dialect
+        );
+        String sql = select.getSql();
+        int[] counts = new int[generatorCount];
+
+        JdbcCoordinator coordinator = session.getJdbcCoordinator();
+        try (PreparedStatement statement = coordinator.getStatementPreparer().prepareStatement(sql)) {
+            select.bind(statement, fetchSizes);
+            try (ResultSet resultSet = coordinator.getResultSetReturn().extract(statement, sql)) {
+                while (resultSet.next()) {
+                    int index = resultSet.getInt(1);
+                    long value = coordinatedGenerators.get(index).extractValue(resultSet, 2);
+                    if (counts[index] < blocks[index].length) {
+                        blocks[index][counts[index]] = value;
+                    }
+                    counts[index]++;
+                }
+            }
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(
+                e, "could not get next sequence values", sql);
+        }
+        for (int i = 0; i < generatorCount; i++) {
+            if (counts[i] != fetchSizes[i]) {
+                throw new IdentifierGenerationException("expected " + fetchSizes[i] + " values from "
+                    + coordinatedGenerators.get(i) + " but got " + counts[i]);
+            }
+            blocks[i] = coordinatedGenerators.get(i).expandIdentifierValues(blocks[i], blockSizes[i]);
+        }
+        return blocks;
+    }
+}
@@ -1,5 +1,6 @@
 package io.hypersistence.utils.hibernate.id;
 
+import io.hypersistence.utils.common.LogUtils;
 import org.hibernate.HibernateException;
 import org.hibernate.MappingException;
 import org.hibernate.boot.model.naming.Identifier;
@@ -8,8 +9,10 @@ import org.hibernate.boot.model.relational.QualifiedName;
 import org.hibernate.boot.model.relational.QualifiedNameParser;
 import org.hibernate.boot.model.relational.SqlStringGenerationContext;
 import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
 import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
 import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.jdbc.spi.SqlExceptionHelper;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.generator.GeneratorCreationContext;
 import org.hibernate.id.BulkInsertionCapableIdentifierGenerator;
@@ -17,6 +20,7 @@ import org.hibernate.id.Configurable;
 import org.hibernate.id.IdentifierGenerationException;
 import org.hibernate.id.PersistentIdentifierGenerator;
 import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledOptimizer;
 import org.hibernate.id.enhanced.SequenceStructure;
 import org.hibernate.internal.util.config.ConfigurationHelper;
 
@@ -26,12 +30,23 @@ import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
 
 /**
  * A sequence generator that uses a recursive query to fetch multiple
@@ -115,6 +130,44 @@ import java.util.concurrent.locks.ReentrantLock;
  *   FROM t
  * </code></pre>
  *
+ * <h2>Prefetching</h2>
+ * When {@link BatchSequence#prefetchThreshold()} is set, the next block of sequence values is fetched
+ * in the background, using a separate connection from the {@link ConnectionProvider} of the
+ * {@code SessionFactory}, as soon as the number of identifiers left in the current block
+ * drops to the given threshold. This way, the inserting threads don't have to wait for the
+ * sequence round trip once the current block is exhausted.
+ *
+ * <h2>Adaptive fetch size</h2>
+ * When {@link BatchSequence#maxFetchSize()} is set, the size of the next block adapts to the rate
+ * at which the previous block was consumed. If the previous block was consumed in less than
+ * {@link #ADAPTIVE_GROW_INTERVAL_MILLIS}, the next block size is doubled, and if it took more than
+ * {@link #ADAPTIVE_SHRINK_INTERVAL_MILLIS}, the next block size is halved, while staying within the
+ * {@link BatchSequence#minFetchSize()} and {@link BatchSequence#maxFetchSize()} bounds.
+ * The current block size and the number of blocks fetched so far are exposed by
+ * {@link #getFetchSize()} and {@link #getReplenishCount()}.
+ *
+ * <h2>Coordinated fetching</h2>
+ * When {@link BatchSequence#coordinated()} is enabled, the coordinated generators of the same
+ * {@code SessionFactory} are replenished together. When one of them runs out of identifiers, the
+ * next blocks of the other coordinated generators that already started consuming their current block
+ * are fetched in the same round trip, using a {@code UNION ALL} of the sequence selects.
+ * This is supported on PostgreSQL and on the databases using the default recursive CTE, like H2.
+ * On Oracle, SQL Server, DB2, and HSQLDB, sequence values cannot be fetched in a {@code UNION ALL}
+ * query, so each generator fetches its own block.
+ *
+ * <h2>Increment by fetch size</h2>
+ * When {@link BatchSequence#incrementByFetchSize()} is enabled, the sequence is created with
+ * {@code INCREMENT BY} the fetch size, and every sequence value reserves a whole block of identifiers.
+ * The next block is fetched by calling the sequence once, and the identifiers are expanded locally,
+ * so the database increments the sequence and sends a single row per block instead of one per identifier.
+ * Since the block size is fixed by the sequence increment, this option cannot be combined with the
+ * adaptive fetch size.
+ *
+ * <h2>Bulk generation</h2>
+ * The {@link #generate(SharedSessionContractImplementor, int)} method fetches a block sized exactly to the
+ * requested number of identifiers in a single round trip, so that an {@link IdentifierReservation} can assign
+ * the identifiers of many entities without replenishing the current block over and over again.
+ *
  * <h2>Database Support</h2>
  * The following RDBMS have been verified to work
  * <ul>
@@ -136,7 +189,8 @@ import java.util.concurrent.locks.ReentrantLock;
  * @author Philippe Marschall
  * @since 2.14.0
  */
-public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGenerator, PersistentIdentifierGenerator, Configurable {
+public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGenerator, PersistentIdentifierGenerator,
+    Configurable, BulkIdentifierGenerator {
 
     /**
      * Indicates the name of the sequence to use, mandatory.
@@ -159,11 +213,43 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
      */
     public static final int DEFAULT_FETCH_SIZE = 10;
 
+    /**
+     * When using an adaptive fetch size, the next block size is doubled if the previous block
+     * was consumed in less than this many milliseconds.
+     */
+    public static final long ADAPTIVE_GROW_INTERVAL_MILLIS = 1000;
+
+    /**
+     * When using an adaptive fetch size, the next block size is halved if the previous block
+     * took more than this many milliseconds to be consumed.
+     */
+    public static final long ADAPTIVE_SHRINK_INTERVAL_MILLIS = 60_000;
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "batch-sequence-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Lock lock = new ReentrantLock();
 
+    private final AtomicReference<CompletableFuture<long[]>> prefetchedValues = new AtomicReference<>();
+
+    private final AtomicReference<BigInteger> wideValueBase = new AtomicReference<>();
+
     // Initialized during configure phase
     private int fetchSize;
 
+    private int minFetchSize;
+
+    private int maxFetchSize;
+
+    private int prefetchThreshold;
+
+    private boolean coordinated;
+
+    private boolean incrementByFetchSize;
+
     private QualifiedName sequenceName;
 
     private IdentifierExtractor identifierExtractor;
@@ -173,7 +259,17 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
     // Initialized during initialize phase
     private String select;
 
-    private IdentifierPool identifierPool;
+    private String nextValueSelect;
+
+    private String sequenceNextValString;
+
+    private volatile IdentifierPool identifierPool;
+
+    private volatile int currentFetchSize;
+
+    private long lastReplenishNanos;
+
+    private final AtomicLong replenishCount = new AtomicLong();
 
     /**
      * Called when {@link BatchSequence} is used.
@@ -186,6 +282,23 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
       JdbcEnvironment jdbcEnvironment = context.getServiceRegistry().getService(JdbcEnvironment.class);
       this.sequenceName = determineSequenceName(annotation, jdbcEnvironment);
       this.fetchSize = annotation.fetchSize();
+      if (annotation.maxFetchSize() > 0) {
+          this.minFetchSize = annotation.minFetchSize();
+          this.maxFetchSize = annotation.maxFetchSize();
+          if (this.minFetchSize <= 0 || this.minFetchSize > this.fetchSize || this.fetchSize > this.maxFetchSize) {
+              throw new MappingException("the fetch size must be between the positive min and max fetch size");
+          }
+      } else {
+          this.minFetchSize = this.fetchSize;
+          this.maxFetchSize = this.fetchSize;
+      }
+      this.currentFetchSize = this.fetchSize;
+      this.prefetchThreshold = determinePrefetchThreshold(annotation.prefetchThreshold(), this.minFetchSize);
+      this.coordinated = annotation.coordinated();
+      this.incrementByFetchSize = annotation.incrementByFetchSize();
+      if (this.incrementByFetchSize && annotation.maxFetchSize() > 0) {
+          throw new MappingException("the increment by fetch size mode requires a fixed fetch size");
+      }
       
       Class<?> type = getType(annotatedMember);
       this.identifierExtractor = IdentifierExtractor.getIdentifierExtractor(type);
@@ -202,6 +315,9 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
             
             this.sequenceName = determineSequenceName(params, jdbcEnvironment);
             this.fetchSize = determineFetchSize(params);
+            this.minFetchSize = this.fetchSize;
+            this.maxFetchSize = this.fetchSize;
+            this.currentFetchSize = this.fetchSize;
 
             Class<?> numberType = creationContext.getType().getReturnedClass();
             this.identifierExtractor = IdentifierExtractor.getIdentifierExtractor(numberType);
@@ -232,7 +348,15 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
         this.identifierPool = IdentifierPool.empty();
         this.sequenceStructure.initialize(context);
 
+        this.sequenceNextValString = sequenceNextValString;
         this.select = buildSelect(sequenceNextValString, dialect);
+        if (this.incrementByFetchSize) {
+            this.nextValueSelect = dialect
+                .getSequenceSupport()
+                .getSequenceNextValString(
+                    context.format(this.sequenceName)
+                );
+        }
     }
 
     private static String buildSelect(String nextValString, Dialect dialect) {
@@ -275,8 +399,101 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
         + "SELECT " + nextValString + " FROM t";
     }
 
+    /**
+     * Check whether the database can fetch the values of multiple sequences in a single {@code UNION ALL} query.
+     *
+     * @param dialect the dialect
+     * @return {@code true} if the coordinated SELECT is supported
+     */
+    static boolean supportsCoordinatedSelect(Dialect dialect) {
+        // sequence values are not allowed in a UNION ALL query on these databases
+        return !(dialect instanceof org.hibernate.dialect.OracleDialect
+            || dialect instanceof org.hibernate.dialect.SQLServerDialect
+            || dialect instanceof org.hibernate.dialect.DB2Dialect
+            || dialect instanceof org.hibernate.dialect.HSQLDialect);
+    }
+
+    /**
+     * Build the SELECT that fetches the next values of multiple sequences in a single round trip.
+     * The first column of the result set is the index of the sequence in the given list,
+     * and the second column is the sequence value.
+     *
+     * @param nextValStrings the next value expressions of the sequences
+     * @param dialect the dialect
+     * @return the coordinated SELECT or {@code null} if the database cannot fetch sequence values in a {@code UNION ALL} query
+     */
+    static CoordinatedSelect buildCoordinatedSelect(List<String> nextValStrings, Dialect dialect) {
+        if (!supportsCoordinatedSelect(dialect)) {
+            return null;
+        }
+        StringBuilder sql = new StringBuilder();
+        boolean postgreSQL = dialect instanceof org.hibernate.dialect.PostgreSQLDialect;
+        if (!postgreSQL) {
+            sql.append("WITH RECURSIVE t(n) AS (")
+                .append("SELECT 1 ")
+                .append("UNION ALL ")
+                .append("SELECT n + 1")
+                .append(" FROM t ")
+                .append(" WHERE n < ?) ");
+        }
+        for (int i = 0; i < nextValStrings.size(); i++) {
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT ").append(i).append(", ").append(nextValStrings.get(i));
+            sql.append(postgreSQL ? " FROM generate_series(1, ?)" : " FROM t WHERE n <= ?");
+        }
+        return new CoordinatedSelect(sql.toString(), !postgreSQL);
+    }
+
+    /**
+     * A SELECT fetching the next values of multiple sequences.
+     */
+    static final class CoordinatedSelect {
+
+        private final String sql;
+
+        private final boolean maxFetchSizeParameter;
+
+        CoordinatedSelect(String sql, boolean maxFetchSizeParameter) {
+            this.sql = sql;
+            this.maxFetchSizeParameter = maxFetchSizeParameter;
+        }
+
+        String getSql() {
+            return this.sql;
+        }
+
+        /**
+         * Bind the number of values to fetch from each sequence.
+         *
+         * @param statement the statement
+         * @param fetchSizes the number of values to fetch from each sequence
+         * @throws SQLException if the parameters could not be bound
+         */
+        void bind(PreparedStatement statement, int[] fetchSizes) throws SQLException {
+            int index = 1;
+            if (this.maxFetchSizeParameter) {
+                int maxFetchSize = 0;
+                for (int fetchSize : fetchSizes) {
+                    maxFetchSize = Math.max(maxFetchSize, fetchSize);
+                }
+                statement.setInt(index++, maxFetchSize);
+            }
+            for (int fetchSize : fetchSizes) {
+                statement.setInt(index++, fetchSize);
+            }
+        }
+    }
+
     private SequenceStructure buildSequenceStructure(Class<?> type, QualifiedName sequenceName) {
-        return new SequenceStructure("orm", sequenceName, 1, 1, type);
+        if (!this.incrementByFetchSize) {
+            return new SequenceStructure("orm", sequenceName, 1, 1, type);
+        }
+        SequenceStructure sequenceStructure = new SequenceStructure("orm", sequenceName, 1, this.fetchSize, type);
+        // the increment size is only exported when the optimizer applies it to the sequence values
+        sequenceStructure.configure(new PooledOptimizer(type, this.fetchSize));
+        return sequenceStructure;
     }
 
 	/**
@@ -339,6 +556,16 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
         return fetchSize;
     }
 
+    private static int determinePrefetchThreshold(int prefetchThreshold, int fetchSize) {
+        if (prefetchThreshold < 0) {
+            throw new MappingException("prefetch threshold must not be negative");
+        }
+        if (prefetchThreshold >= fetchSize) {
+            throw new MappingException("prefetch threshold must be smaller than the (min) fetch size");
+        }
+        return prefetchThreshold;
+    }
+
     @Override
     public boolean supportsBulkInsertionIdentifierGeneration() {
         return true;
@@ -351,14 +578,66 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
 
     @Override
     public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
-        this.lock.lock();
-        try {
-            if (this.identifierPool.isEmpty()) {
-                this.identifierPool = this.replenishIdentifierPool(session);
+        Object reservedIdentifier = IdentifierReservation.nextIdentifier(this);
+        if (reservedIdentifier != null) {
+            return (Serializable) reservedIdentifier;
+        }
+        return this.nextPooledIdentifier(session);
+    }
+
+    /**
+     * Generate the given number of identifiers, taking them from the current block first. When fewer identifiers
+     * than the fetch size are requested, the block is replenished like it is for single identifiers, so a warm
+     * block serves them without any sequence call. Otherwise, the shortfall is fetched in a single round trip,
+     * without changing the current block.
+     *
+     * @param session the current session
+     * @param count   the number of identifiers to generate
+     * @return the generated identifiers
+     */
+    @Override
+    public Serializable[] generate(SharedSessionContractImplementor session, int count) {
+        Serializable[] identifiers = new Serializable[count];
+        int index = 0;
+        if (count < this.currentFetchSize) {
+            while (index < count) {
+                identifiers[index++] = this.nextPooledIdentifier(session);
+            }
+            return identifiers;
+        }
+        IdentifierPool currentPool = this.identifierPool;
+        for (Serializable identifier; index < count && (identifier = currentPool.next()) != null; ) {
+            identifiers[index++] = identifier;
+        }
+        if (index < count) {
+            this.replenishCount.incrementAndGet();
+            for (long identifierValue : this.fetchIdentifierValues(session, count - index)) {
+                identifiers[index++] = this.toIdentifier(identifierValue);
+            }
+        }
+        return identifiers;
+    }
+
+    private Serializable nextPooledIdentifier(SharedSessionContractImplementor session) {
+        while (true) {
+            IdentifierPool currentPool = this.identifierPool;
+            Serializable identifier = currentPool.next();
+            if (identifier != null) {
+                if (this.prefetchThreshold > 0 && currentPool.remaining() <= this.prefetchThreshold
+                    && this.identifierPool == currentPool) {
+                    this.prefetchIdentifierValues(session);
+                }
+                return identifier;
+            }
+            // only the replenish step is serialized, handing out identifiers is lock-free
+            this.lock.lock();
+            try {
+                if (this.identifierPool == currentPool) {
+                    this.identifierPool = this.nextIdentifierPool(session);
+                }
+            } finally {
+                this.lock.unlock();
             }
-            return this.identifierPool.next();
-        } finally {
-            this.lock.unlock();
         }
     }
 
@@ -371,27 +650,275 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
         this.sequenceStructure.registerExportables(database);
     }
 
+    private IdentifierPool nextIdentifierPool(SharedSessionContractImplementor session)
+                    throws HibernateException {
+        CompletableFuture<long[]> prefetched = this.prefetchedValues.getAndSet(null);
+        if (prefetched != null) {
+            try {
+                return IdentifierPool.forValues(prefetched.join(), this::toIdentifier);
+            } catch (CompletionException | CancellationException e) {
+                LogUtils.LOGGER.warn(
+                    "Could not prefetch the next values of the [{}] sequence, fetching them synchronously",
+                    this.getSequenceName(),
+                    e.getCause() != null ? e.getCause() : e
+                );
+            }
+        }
+        if (this.coordinated) {
+            BatchSequenceCoordinator coordinator = BatchSequenceCoordinator.forSessionFactory(session.getFactory());
+            coordinator.register(this);
+            long[] identifierValues = coordinator.replenish(this, session);
+            if (identifierValues != null) {
+                return IdentifierPool.forValues(identifierValues, this::toIdentifier);
+            }
+        }
+        return this.replenishIdentifierPool(session);
+    }
+
     private IdentifierPool replenishIdentifierPool(SharedSessionContractImplementor session)
                     throws HibernateException {
+        return IdentifierPool.forValues(this.fetchIdentifierValues(session, this.nextFetchSize()), this::toIdentifier);
+    }
+
+    private long[] fetchIdentifierValues(SharedSessionContractImplementor session, int blockSize)
+                    throws HibernateException {
+        int valueCount = this.sequenceValueCount(blockSize);
+        String sql = this.selectFor(valueCount);
         JdbcCoordinator coordinator = session.getJdbcCoordinator();
-        List<Serializable> identifiers = new ArrayList<>(this.fetchSize);
-        try (PreparedStatement statement = coordinator.getStatementPreparer().prepareStatement(this.select)) {
-            statement.setFetchSize(this.fetchSize);
-            statement.setInt(1, this.fetchSize);
-            try (ResultSet resultSet = coordinator.getResultSetReturn().extract(statement, this.select)) {
-                while (resultSet.next()) {
-                    identifiers.add(this.identifierExtractor.extractIdentifier(resultSet));
-                }
+        try (PreparedStatement statement = coordinator.getStatementPreparer().prepareStatement(sql)) {
+            this.bindSelect(statement, valueCount);
+            try (ResultSet resultSet = coordinator.getResultSetReturn().extract(statement, sql)) {
+                return this.expandIdentifierValues(this.extractIdentifierValues(resultSet, valueCount), blockSize);
             }
         } catch (SQLException e) {
             throw session.getJdbcServices().getSqlExceptionHelper().convert(
-                            e, "could not get next sequence value", this.select);
+                            e, "could not get next sequence value", sql);
+        }
+    }
+
+    /**
+     * Fetch the next block of sequence values in the background, using a connection that's not bound to
+     * the current {@code Session}. If the {@link ConnectionProvider} is not available, like when using
+     * multitenancy, the next block will be fetched synchronously once the current one is exhausted.
+     */
+    private void prefetchIdentifierValues(SharedSessionContractImplementor session) {
+        if (this.prefetchedValues.get() != null) {
+            return;
+        }
+        ConnectionProvider connectionProvider = session.getFactory()
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+        if (connectionProvider == null) {
+            return;
+        }
+        CompletableFuture<long[]> future = new CompletableFuture<>();
+        if (this.prefetchedValues.compareAndSet(null, future)) {
+            SqlExceptionHelper sqlExceptionHelper = session.getJdbcServices().getSqlExceptionHelper();
+            int blockSize = this.nextFetchSize();
+            try {
+                PREFETCH_EXECUTOR.execute(() -> {
+                    try {
+                        future.complete(this.fetchIdentifierValues(connectionProvider, sqlExceptionHelper, blockSize));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private long[] fetchIdentifierValues(ConnectionProvider connectionProvider, SqlExceptionHelper sqlExceptionHelper,
+                                         int blockSize) {
+        int valueCount = this.sequenceValueCount(blockSize);
+        String sql = this.selectFor(valueCount);
+        Connection connection = null;
+        try {
+            connection = connectionProvider.getConnection();
+            long[] identifierValues;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                this.bindSelect(statement, valueCount);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    identifierValues = this.expandIdentifierValues(
+                        this.extractIdentifierValues(resultSet, valueCount), blockSize
+                    );
+                }
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            return identifierValues;
+        } catch (SQLException e) {
+            throw sqlExceptionHelper.convert(e, "could not prefetch next sequence value", sql);
+        } finally {
+            if (connection != null) {
+                try {
+                    connectionProvider.closeConnection(connection);
+                } catch (SQLException e) {
+                    LogUtils.LOGGER.warn("Could not release the sequence prefetch connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of sequence values needed for a block of the given size. When the sequence is
+     * incremented by the fetch size, every sequence value covers {@code fetchSize} identifiers.
+     *
+     * @param blockSize the number of identifiers
+     * @return the number of sequence values to fetch
+     */
+    int sequenceValueCount(int blockSize) {
+        if (!this.incrementByFetchSize) {
+            return blockSize;
+        }
+        return (blockSize + this.fetchSize - 1) / this.fetchSize;
+    }
+
+    /**
+     * Expand the sequence values to the given number of identifiers. When the sequence is incremented by
+     * the fetch size, every sequence value is the first identifier of a block of {@code fetchSize} identifiers.
+     *
+     * @param sequenceValues the sequence values
+     * @param blockSize the number of identifiers
+     * @return the identifier values
+     */
+    long[] expandIdentifierValues(long[] sequenceValues, int blockSize) {
+        if (!this.incrementByFetchSize) {
+            return sequenceValues;
+        }
+        long[] identifierValues = new long[blockSize];
+        for (int i = 0; i < blockSize; i++) {
+            identifierValues[i] = sequenceValues[i / this.fetchSize] + (i % this.fetchSize);
+        }
+        return identifierValues;
+    }
+
+    private String selectFor(int valueCount) {
+        return this.nextValueSelect != null && valueCount == 1 ? this.nextValueSelect : this.select;
+    }
+
+    private void bindSelect(PreparedStatement statement, int valueCount) throws SQLException {
+        statement.setFetchSize(valueCount);
+        if (this.nextValueSelect == null || valueCount > 1) {
+            statement.setInt(1, valueCount);
+        }
+    }
+
+    /**
+     * Determine the size of the block that's about to be fetched. When using an adaptive fetch size,
+     * the block size is adjusted based on how long it took to consume the previous block.
+     */
+    synchronized int nextFetchSize() {
+        this.replenishCount.incrementAndGet();
+        if (this.minFetchSize == this.maxFetchSize) {
+            return this.currentFetchSize;
+        }
+        long nowNanos = System.nanoTime();
+        int nextFetchSize = this.currentFetchSize;
+        if (this.lastReplenishNanos != 0) {
+            long consumptionMillis = TimeUnit.NANOSECONDS.toMillis(nowNanos - this.lastReplenishNanos);
+            if (consumptionMillis < ADAPTIVE_GROW_INTERVAL_MILLIS) {
+                nextFetchSize = (int) Math.min((long) nextFetchSize * 2, this.maxFetchSize);
+            } else if (consumptionMillis > ADAPTIVE_SHRINK_INTERVAL_MILLIS) {
+                nextFetchSize = Math.max(nextFetchSize / 2, this.minFetchSize);
+            }
+        }
+        this.lastReplenishNanos = nowNanos;
+        this.currentFetchSize = nextFetchSize;
+        return nextFetchSize;
+    }
+
+    /**
+     * Get the size of the most recently requested block of sequence values.
+     *
+     * @return the current fetch size
+     */
+    public int getFetchSize() {
+        return this.currentFetchSize;
+    }
+
+    /**
+     * Get the number of blocks of sequence values requested so far, either synchronously, by prefetching, or in bulk.
+     *
+     * @return the number of blocks requested from the database
+     */
+    public long getReplenishCount() {
+        return this.replenishCount.get();
+    }
+
+    /**
+     * Claim the slot of the next block, so it can be filled by a coordinated fetch.
+     *
+     * @return the future to complete with the next block or {@code null} if this generator does not need it yet
+     */
+    CompletableFuture<long[]> claimNextBlock() {
+        IdentifierPool currentPool = this.identifierPool;
+        if (currentPool == null || (currentPool.size() > 0 && currentPool.remaining() == currentPool.size())) {
+            // the current block has not been used yet
+            return null;
+        }
+        CompletableFuture<long[]> future = new CompletableFuture<>();
+        return this.prefetchedValues.compareAndSet(null, future) ? future : null;
+    }
+
+    String getSequenceNextValString() {
+        return this.sequenceNextValString;
+    }
+
+    /**
+     * Extract the sequence value from the given column of the current {@link ResultSet} row.
+     * <p>
+     * The {@link BigInteger} and {@link BigDecimal} sequence values are stored relative to the first value
+     * fetched by this generator, so that values outside the {@code long} range are supported as well.
+     *
+     * @param resultSet the result set positioned on the sequence value
+     * @param columnIndex the index of the column holding the sequence value
+     * @return the sequence value
+     * @throws SQLException if the value could not be read
+     */
+    long extractValue(ResultSet resultSet, int columnIndex) throws SQLException {
+        if (!this.identifierExtractor.isWide()) {
+            return this.identifierExtractor.extractValue(resultSet, columnIndex);
+        }
+        BigInteger value = IdentifierExtractor.extractBigIntegerValue(resultSet, columnIndex);
+        BigInteger base = this.wideValueBase.updateAndGet(currentBase -> currentBase != null ? currentBase : value);
+        try {
+            return value.subtract(base).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IdentifierGenerationException("sequence value out of range: " + value, e);
+        }
+    }
+
+    /**
+     * Convert the sequence value returned by {@link #extractValue(ResultSet, int)} to the identifier type.
+     *
+     * @param value the sequence value
+     * @return the identifier
+     */
+    Serializable toIdentifier(long value) {
+        if (!this.identifierExtractor.isWide()) {
+            return this.identifierExtractor.toIdentifier(value);
+        }
+        return this.identifierExtractor.toIdentifier(this.wideValueBase.get().add(BigInteger.valueOf(value)));
+    }
+
+    private long[] extractIdentifierValues(ResultSet resultSet, int blockSize) throws SQLException {
+        long[] identifierValues = new long[blockSize];
+        int count = 0;
+        while (resultSet.next()) {
+            long identifierValue = this.extractValue(resultSet, 1);
+            if (count < identifierValues.length) {
+                identifierValues[count] = identifierValue;
+            }
+            count++;
         }
-        if (identifiers.size() != this.fetchSize) {
-            throw new IdentifierGenerationException("expected " + this.fetchSize + " values from " + this.getSequenceName()
-            + " but got " + identifiers.size());
+        if (count != blockSize) {
+            throw new IdentifierGenerationException("expected " + blockSize + " values from " + this.getSequenceName()
+            + " but got " + count);
         }
-        return IdentifierPool.forList(identifiers);
+        return identifierValues;
     }
 
     @Override
@@ -401,29 +928,61 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
 
     /**
      * Holds a number of prefetched identifiers.
+     * <p>
+     * The values are stored in a primitive {@code long} array and handed out through an atomic cursor,
+     * so multiple threads can take identifiers from the same pool without locking.
+     * The values are converted to the identifier type on hand-out.
      */
     static final class IdentifierPool {
 
-        private final Iterator<Serializable> iterator;
+        private static final long[] NO_VALUES = new long[0];
+
+        private final long[] values;
 
-        private IdentifierPool (List<Serializable> identifiers) {
-            this.iterator = identifiers.iterator();
+        private final LongFunction<Serializable> identifierConverter;
+
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        private IdentifierPool(long[] values, LongFunction<Serializable> identifierConverter) {
+            this.values = values;
+            this.identifierConverter = identifierConverter;
         }
 
-        static IdentifierPool forList(List<Serializable> identifiers) {
-            return new IdentifierPool(identifiers);
+        static IdentifierPool forValues(long[] values, LongFunction<Serializable> identifierConverter) {
+            return new IdentifierPool(values, identifierConverter);
         }
 
         static IdentifierPool empty() {
-            return new IdentifierPool(Collections.emptyList());
+            return new IdentifierPool(NO_VALUES, IdentifierExtractor.LONG_IDENTIFIER_EXTRACTOR::toIdentifier);
         }
 
         boolean isEmpty() {
-            return !this.iterator.hasNext();
+            return this.cursor.get() >= this.values.length;
         }
 
+        int size() {
+            return this.values.length;
+        }
+
+        int remaining() {
+            return Math.max(this.values.length - this.cursor.get(), 0);
+        }
+
+        /**
+         * Get the next identifier from the pool.
+         *
+         * @return the next identifier or {@code null} if the pool is exhausted
+         */
         Serializable next() {
-            return this.iterator.next();
+            // check first so that an exhausted pool does not keep incrementing the cursor
+            if (isEmpty()) {
+                return null;
+            }
+            int index = this.cursor.getAndIncrement();
+            if (index >= this.values.length) {
+                return null;
+            }
+            return this.identifierConverter.apply(this.values[index]);
         }
 
     }
@@ -436,56 +995,114 @@ public class BatchSequenceGenerator implements BulkInsertionCapableIdentifierGen
     enum IdentifierExtractor {
         SHORT_IDENTIFIER_EXTRACTOR {
             @Override
-            Serializable extractIdentifier(ResultSet resultSet) throws SQLException {
-                short shortValue = resultSet.getShort(1);
+            long extractValue(ResultSet resultSet, int columnIndex) throws SQLException {
+                short shortValue = resultSet.getShort(columnIndex);
                 if (resultSet.wasNull()) {
                     throw new IdentifierGenerationException("sequence returned null");
                 }
                 return shortValue;
             }
+
+            @Override
+            Serializable toIdentifier(long value) {
+                return (short) value;
+            }
         },
         INTEGER_IDENTIFIER_EXTRACTOR {
             @Override
-            Serializable extractIdentifier(ResultSet resultSet) throws SQLException {
-                int intValue = resultSet.getInt(1);
+            long extractValue(ResultSet resultSet, int columnIndex) throws SQLException {
+                int intValue = resultSet.getInt(columnIndex);
                 if (resultSet.wasNull()) {
                     throw new IdentifierGenerationException("sequence returned null");
                 }
                 return intValue;
             }
+
+            @Override
+            Serializable toIdentifier(long value) {
+                return (int) value;
+            }
         },
         LONG_IDENTIFIER_EXTRACTOR {
             @Override
-            Serializable extractIdentifier(ResultSet resultSet) throws SQLException {
-                long longValue = resultSet.getLong(1);
+            long extractValue(ResultSet resultSet, int columnIndex) throws SQLException {
+                long longValue = resultSet.getLong(columnIndex);
                 if (resultSet.wasNull()) {
                     throw new IdentifierGenerationException("sequence returned null");
                 }
                 return longValue;
             }
+
+            @Override
+            Serializable toIdentifier(long value) {
+                return value;
+            }
         },
         BIG_INTEGER_IDENTIFIER_EXTRACTOR {
             @Override
-            Serializable extractIdentifier(ResultSet resultSet) throws SQLException {
-                BigDecimal bigDecimal = resultSet.getBigDecimal(1);
-                if (resultSet.wasNull()) {
-                    throw new IdentifierGenerationException("sequence returned null");
-                }
-                return bigDecimal.setScale(0, BigDecimal.ROUND_UNNECESSARY).toBigInteger();
+            Serializable toIdentifier(BigInteger value) {
+                return value;
             }
         },
         BIG_DECIMAL_IDENTIFIER_EXTRACTOR {
             @Override
-            Serializable extractIdentifier(ResultSet resultSet) throws SQLException {
-                BigDecimal bigDecimal = resultSet.getBigDecimal(1);
-                if (resultSet.wasNull()) {
-                    throw new IdentifierGenerationException("sequence returned null");
-                }
-                return bigDecimal;
+            Serializable toIdentifier(BigInteger value) {
+                return new BigDecimal(value);
             }
         };
 
-        abstract Serializable extractIdentifier(ResultSet resultSet) throws SQLException;
+        /**
+         * Extract the sequence value from the current row of the {@link ResultSet}.
+         *
+         * @param resultSet the result set positioned on the sequence value
+         * @param columnIndex the index of the column holding the sequence value
+         * @return the sequence value
+         * @throws SQLException if the value could not be read
+         */
+        long extractValue(ResultSet resultSet, int columnIndex) throws SQLException {
+            try {
+                return extractBigIntegerValue(resultSet, columnIndex).longValueExact();
+            } catch (ArithmeticException e) {
+                throw new IdentifierGenerationException("sequence value out of range", e);
+            }
+        }
+
+        /**
+         * Convert the sequence value to the identifier type of the entity.
+         *
+         * @param value the sequence value
+         * @return the identifier
+         */
+        Serializable toIdentifier(long value) {
+            return toIdentifier(BigInteger.valueOf(value));
+        }
+
+        /**
+         * Convert the wide sequence value to the identifier type of the entity.
+         *
+         * @param value the sequence value
+         * @return the identifier
+         */
+        Serializable toIdentifier(BigInteger value) {
+            throw new UnsupportedOperationException("the " + name() + " does not support wide values");
+        }
+
+        /**
+         * Check whether the identifier type can hold values outside the {@code long} range.
+         *
+         * @return {@code true} for the {@link BigInteger} and {@link BigDecimal} identifier types
+         */
+        boolean isWide() {
+            return this == BIG_INTEGER_IDENTIFIER_EXTRACTOR || this == BIG_DECIMAL_IDENTIFIER_EXTRACTOR;
+        }
+
+        static BigInteger extractBigIntegerValue(ResultSet resultSet, int columnIndex) throws SQLException {
+            BigDecimal bigDecimal = resultSet.getBigDecimal(columnIndex);
+            if (resultSet.wasNull()) {
+                throw new IdentifierGenerationException("sequence returned null");
+            }
+            return bigDecimal.setScale(0, BigDecimal.ROUND_UNNECESSARY).toBigInteger();
+        }
 
         static IdentifierExtractor getIdentifierExtractor(Class<?> integralType) {
             if ((integralType == Integer.class) || (integralType == int.class)) {
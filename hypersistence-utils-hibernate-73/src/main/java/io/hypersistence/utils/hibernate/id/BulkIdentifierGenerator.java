@@ -0,0 +1,24 @@
+package io.hypersistence.utils.hibernate.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * An identifier generator that can generate multiple identifiers in a single interaction,
+ * like a single atomic counter update or a single database round trip.
+ * <p>
+ * The generated identifiers can be handed out by the {@link IdentifierReservation}
+ * when persisting multiple entities of the same type.
+ *
+ * @author Vlad Mihalcea
+ */
+public interface BulkIdentifierGenerator {
+
+    /**
+     * Generate the given number of identifiers at once.
+     *
+     * @param session the current session
+     * @param count   the number of identifiers to generate
+     * @return the generated identifiers
+     */
+    Object[] generate(SharedSessionContractImplementor session, int count);
+}
@@ -0,0 +1,97 @@
+package io.hypersistence.utils.hibernate.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * The {@code IdentifierReservation} holds the identifiers a {@link BulkIdentifierGenerator} generated up front
+ * for the current thread. Until the reservation is closed, the generator hands out the reserved identifiers
+ * instead of generating them one by one.
+ * <pre><code>
+ * try (IdentifierReservation reservation = IdentifierReservation.reserve(generator, session, posts.size())) {
+ *     for (Post post : posts) {
+ *         entityManager.persist(post);
+ *     }
+ * }
+ * </code></pre>
+ * <p>
+ * The reserved identifiers that are not used until the reservation is closed are discarded.
+ *
+ * @author Vlad Mihalcea
+ */
+public final class IdentifierReservation implements AutoCloseable {
+
+    private static final ThreadLocal<IdentifierReservation> CURRENT_RESERVATION = new ThreadLocal<>();
+
+    private final BulkIdentifierGenerator generator;
+
+    private final Object[] identifiers;
+
+    private final IdentifierReservation previousReservation;
+
+    private int index;
+
+    private IdentifierReservation(BulkIdentifierGenerator generator, Object[] identifiers,
+                                  IdentifierReservation previousReservation) {
+        this.generator = generator;
+        this.identifiers = identifiers;
+        this.previousReservation = previousReservation;
+    }
+
+    /**
+     * Reserve the given number of identifiers for the current thread.
+     *
+     * @param generator the generator of the reserved identifiers
+     * @param session   the current session
+     * @param count     the number of identifiers to reserve
+     * @return the identifier reservation, which must be closed by the current thread
+     */
+    public static IdentifierReservation reserve(BulkIdentifierGenerator generator,
+                                                SharedSessionContractImplementor session, int count) {
+        IdentifierReservation reservation = new IdentifierReservation(
+            generator,
+            generator.generate(session, count),
+            CURRENT_RESERVATION.get()
+        );
+        CURRENT_RESERVATION.set(reservation);
+        return reservation;
+    }
+
+    /**
+     * Get the next identifier the current thread reserved for the given generator.
+     *
+     * @param generator the identifier generator
+     * @return the next reserved identifier or {@code null} if there's none left
+     */
+    static Object nextIdentifier(BulkIdentifierGenerator generator) {
+        for (IdentifierReservation reservation = CURRENT_RESERVATION.get(); reservation != null;
+             reservation = reservation.previousReservation) {
+            if (reservation.generator == generator) {
+                return reservation.index < reservation.identifiers.length ?
+                    reservation.identifiers[reservation.index++] :
+                    null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of reserved identifiers that were not handed out yet.
+     *
+     * @return the number of remaining identifiers
+     */
+    public int remaining() {
+        return identifiers.length - index;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT_RESERVATION.get() != this) {
+            throw new IllegalStateException("Identifier reservations must be closed in the reverse order of their creation!");
+        }
+        if (previousReservation != null) {
+            CURRENT_RESERVATION.set(previousReservation);
+        } else {
+            CURRENT_RESERVATION.remove();
+        }
+    }
+}
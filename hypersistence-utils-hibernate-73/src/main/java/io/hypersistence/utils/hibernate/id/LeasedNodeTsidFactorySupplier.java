@@ -0,0 +1,520 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.tsid.TSID;
+import io.hypersistence.utils.common.LogUtils;
+import io.hypersistence.utils.common.ReflectionUtils;
+import org.hibernate.HibernateException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.SimpleAuxiliaryDatabaseObject;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.Size;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.mapping.Table;
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.descriptor.sql.spi.DdlTypeRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The {@code LeasedNodeTsidFactorySupplier} provides a {@link TSID.Factory} whose node identifier is leased
+ * from a database table, so that every JVM generating TSID values gets a unique node without any manual
+ * configuration.
+ * <p>
+ * To use it, set it on the {@link Tsid} annotation:
+ * <pre><code>
+ * &commat;Id
+ * &commat;Tsid(LeasedNodeTsidFactorySupplier.class)
+ * private Long id;
+ * </code></pre>
+ * <p>
+ * The node is leased on the first TSID generation, using a connection from the {@link ConnectionProvider}
+ * of the {@code SessionFactory}. The lease is renewed in the background, and it's released when the
+ * {@code SessionFactory} is closed, when {@link #close()} is called, or when the JVM shuts down. If a JVM stops
+ * without releasing its lease, the node becomes available again once the lease expires. Since the lease expiration
+ * is based on the JVM clock, the clocks of the JVMs sharing the lease table must be synchronized.
+ * <p>
+ * The lease table is created by the schema management tool, or it can be created manually:
+ * <pre><code>
+ * CREATE TABLE tsid_node_lease (
+ *     node_id    INTEGER     NOT NULL,
+ *     owner_id   VARCHAR(64) NOT NULL,
+ *     expires_at BIGINT      NOT NULL,
+ *     PRIMARY KEY (node_id)
+ * )
+ * </code></pre>
+ * <p>
+ * To change the number of node bits, the lease duration, or the lease table name, extend this class and call the
+ * {@link #LeasedNodeTsidFactorySupplier(int, Duration, String)} constructor.
+ *
+ * @author Vlad Mihalcea
+ */
+public class LeasedNodeTsidFactorySupplier implements Supplier<TSID.Factory>, AutoCloseable {
+
+    public static final String DEFAULT_TABLE_NAME = "tsid_node_lease";
+
+    public static final int DEFAULT_NODE_BITS = 10;
+
+    public static final Duration DEFAULT_LEASE_DURATION = Duration.ofMinutes(1);
+
+    private static final int OWNER_ID_LENGTH = 64;
+
+    private static final ScheduledExecutorService RENEWAL_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tsid-node-lease-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The suppliers are removed when their {@code SessionFactory} is closed, see {@link LeasedNodeTsidIntegrator}.
+     */
+    private static final Map<ConnectionProvider, Map<Class<?>, LeasedNodeTsidFactorySupplier>> SUPPLIERS = new HashMap<>();
+
+    private final int nodeBits;
+
+    private final long leaseMillis;
+
+    private final String tableName;
+
+    private final String ownerId = UUID.randomUUID().toString();
+
+    private ConnectionProvider connectionProvider;
+
+    private volatile Lease lease;
+
+    private ScheduledFuture<?> renewal;
+
+    private Thread shutdownHook;
+
+    /**
+     * Create a supplier using {@link #DEFAULT_NODE_BITS} node bits, a lease of {@link #DEFAULT_LEASE_DURATION},
+     * and the {@link #DEFAULT_TABLE_NAME} lease table.
+     */
+    public LeasedNodeTsidFactorySupplier() {
+        this(DEFAULT_NODE_BITS, DEFAULT_LEASE_DURATION, DEFAULT_TABLE_NAME);
+    }
+
+    /**
+     * Create a supplier using the given lease configuration.
+     *
+     * @param nodeBits      the number of bits used by the node identifier
+     * @param leaseDuration how long a node is leased before it has to be renewed
+     * @param tableName     the name of the lease table
+     */
+    public LeasedNodeTsidFactorySupplier(int nodeBits, Duration leaseDuration, String tableName) {
+        if (nodeBits < 1 || nodeBits > 20) {
+            throw new IllegalArgumentException(
+                String.format("The node bits [%d] must be between 1 and 20!", nodeBits)
+            );
+        }
+        if (leaseDuration.toMillis() < 3) {
+            throw new IllegalArgumentException(
+                String.format("The lease duration [%s] is too short!", leaseDuration)
+            );
+        }
+        this.nodeBits = nodeBits;
+        this.leaseMillis = leaseDuration.toMillis();
+        this.tableName = tableName;
+    }
+
+    /**
+     * Get the supplier of the given class for the {@code SessionFactory} being built, so that all the entities
+     * using the same supplier class share the same node lease. The lease table is registered with the
+     * schema management tool.
+     *
+     * @param supplierClass   the supplier class
+     * @param creationContext the generator creation context
+     * @return the supplier shared by the {@code SessionFactory}
+     */
+    static LeasedNodeTsidFactorySupplier forCreationContext(Class<?> supplierClass, GeneratorCreationContext creationContext) {
+        ConnectionProvider connectionProvider = creationContext.getServiceRegistry().getService(ConnectionProvider.class);
+        if (connectionProvider == null) {
+            throw new HibernateException(
+                String.format("The [%s] requires a ConnectionProvider to lease the TSID node!", supplierClass.getName())
+            );
+        }
+        LeasedNodeTsidFactorySupplier supplier;
+        synchronized (SUPPLIERS) {
+            supplier = SUPPLIERS
+                .computeIfAbsent(connectionProvider, key -> new HashMap<>())
+                .computeIfAbsent(supplierClass, key -> {
+                    LeasedNodeTsidFactorySupplier newSupplier = ReflectionUtils.newInstance(supplierClass);
+                    newSupplier.configure(connectionProvider);
+                    return newSupplier;
+                });
+        }
+        supplier.registerLeaseTable(creationContext.getDatabase());
+        return supplier;
+    }
+
+    /**
+     * Close the suppliers using the given {@link ConnectionProvider}, releasing their leased nodes.
+     *
+     * @param connectionProvider the connection provider of the {@code SessionFactory} being closed
+     */
+    static void closeAll(ConnectionProvider connectionProvider) {
+        Map<Class<?>, LeasedNodeTsidFactorySupplier> suppliers;
+        synchronized (SUPPLIERS) {
+            suppliers = SUPPLIERS.remove(connectionProvider);
+        }
+        if (suppliers != null) {
+            for (LeasedNodeTsidFactorySupplier supplier : suppliers.values()) {
+                supplier.release();
+            }
+        }
+    }
+
+    /**
+     * Get the suppliers using the given {@link ConnectionProvider}.
+     *
+     * @param connectionProvider the connection provider
+     * @return the suppliers using the given connection provider
+     */
+    static List<LeasedNodeTsidFactorySupplier> suppliers(ConnectionProvider connectionProvider) {
+        synchronized (SUPPLIERS) {
+            Map<Class<?>, LeasedNodeTsidFactorySupplier> suppliers = SUPPLIERS.get(connectionProvider);
+            return suppliers != null ? new ArrayList<>(suppliers.values()) : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Set the {@link ConnectionProvider} used to lease the node.
+     *
+     * @param connectionProvider the connection provider
+     */
+    void configure(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * Register the lease table so that it's created and dropped along with the entity tables.
+     */
+    private void registerLeaseTable(Database database) {
+        Dialect dialect = database.getDialect();
+        DdlTypeRegistry ddlTypeRegistry = database.getTypeConfiguration().getDdlTypeRegistry();
+        String createTable = String.format(
+            "%s %s (node_id %s not null, owner_id %s not null, expires_at %s not null, primary key (node_id))",
+            dialect.getCreateTableString(),
+            this.tableName,
+            ddlTypeRegistry.getTypeName(SqlTypes.INTEGER, dialect),
+            ddlTypeRegistry.getTypeName(
+                SqlTypes.VARCHAR,
+                Size.length(OWNER_ID_LENGTH),
+                database.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.STRING)
+            ),
+            ddlTypeRegistry.getTypeName(SqlTypes.BIGINT, dialect)
+        );
+        Namespace namespace = database.getDefaultNamespace();
+        Table table = new Table(
+            LeasedNodeTsidFactorySupplier.class.getName(),
+            namespace,
+            database.toIdentifier(this.tableName),
+            false
+        );
+        database.addAuxiliaryDatabaseObject(
+            new SimpleAuxiliaryDatabaseObject(
+                namespace,
+                new String[]{createTable},
+                new String[0],
+                null
+            ) {
+                @Override
+                public String getExportIdentifier() {
+                    return LeasedNodeTsidFactorySupplier.class.getName() + "." + tableName;
+                }
+
+                @Override
+                public String[] sqlDropStrings(SqlStringGenerationContext context) {
+                    // the drop statement only depends on the table name, not on the Metadata
+                    return context.getDialect().getTableExporter().getSqlDropStrings(table, null, context);
+                }
+            }
+        );
+    }
+
+    /**
+     * Generate a new TSID using the leased node.
+     *
+     * @return new TSID
+     */
+    public TSID generate() {
+        return get().generate();
+    }
+
+    /**
+     * Get the {@link TSID.Factory} of the leased node, leasing a node if there's no valid lease.
+     *
+     * @return the {@link TSID.Factory} of the leased node
+     */
+    @Override
+    public TSID.Factory get() {
+        Lease currentLease = this.lease;
+        if (currentLease == null || currentLease.isExpired()) {
+            currentLease = this.ensureLease();
+        }
+        return currentLease.factory;
+    }
+
+    /**
+     * Get the currently leased node.
+     *
+     * @return the leased node or {@code -1} if no node is leased
+     */
+    public int getNode() {
+        Lease currentLease = this.lease;
+        return currentLease != null ? currentLease.node : -1;
+    }
+
+    /**
+     * Stop renewing the lease and release the leased node.
+     */
+    @Override
+    public void close() {
+        synchronized (SUPPLIERS) {
+            Map<Class<?>, LeasedNodeTsidFactorySupplier> suppliers = SUPPLIERS.get(this.connectionProvider);
+            if (suppliers != null && suppliers.remove(getClass(), this) && suppliers.isEmpty()) {
+                SUPPLIERS.remove(this.connectionProvider);
+            }
+        }
+        this.release();
+    }
+
+    private synchronized void release() {
+        if (this.renewal != null) {
+            this.renewal.cancel(false);
+            this.renewal = null;
+        }
+        if (this.shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            } catch (IllegalStateException e) {
+                // the JVM is already shutting down
+            }
+            this.shutdownHook = null;
+        }
+        Lease currentLease = this.lease;
+        if (currentLease != null) {
+            this.lease = null;
+            try {
+                this.executeUpdate(
+                    String.format("DELETE FROM %s WHERE node_id = ? AND owner_id = ?", this.tableName),
+                    currentLease.node, this.ownerId
+                );
+            } catch (SQLException | RuntimeException e) {
+                LogUtils.LOGGER.warn("Could not release the TSID node [{}], which will expire", currentLease.node, e);
+            }
+        }
+    }
+
+    private synchronized Lease ensureLease() {
+        Lease currentLease = this.lease;
+        if (currentLease != null && !currentLease.isExpired()) {
+            return currentLease;
+        }
+        try {
+            if (currentLease != null && this.renewLease(currentLease)) {
+                return this.lease;
+            }
+            this.lease = this.acquireLease();
+        } catch (SQLException e) {
+            throw new IdentifierGenerationException(
+                String.format("Could not lease a TSID node from the [%s] table", this.tableName), e
+            );
+        }
+        if (this.renewal == null) {
+            long renewalMillis = this.leaseMillis / 3;
+            this.renewal = RENEWAL_EXECUTOR.scheduleAtFixedRate(
+                this::renewLease, renewalMillis, renewalMillis, TimeUnit.MILLISECONDS
+            );
+        }
+        if (this.shutdownHook == null) {
+            this.shutdownHook = new Thread(this::release, "tsid-node-lease-release");
+            Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+        }
+        return this.lease;
+    }
+
+    private Lease acquireLease() throws SQLException {
+        int nodeCount = 1 << this.nodeBits;
+        boolean[] leased = new boolean[nodeCount];
+        List<Integer> expiredNodes = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        Connection connection = this.connectionProvider.getConnection();
+        try {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    String.format("SELECT node_id, expires_at FROM %s", this.tableName));
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int node = resultSet.getInt(1);
+                    if (node >= 0 && node < nodeCount) {
+                        leased[node] = true;
+                        if (resultSet.getLong(2) < now) {
+                            expiredNodes.add(node);
+                        }
+                    }
+                }
+            }
+            commit(connection);
+        } finally {
+            this.connectionProvider.closeConnection(connection);
+        }
+        // start from a random node to reduce the collisions between the JVMs leasing a node at the same time
+        int offset = ThreadLocalRandom.current().nextInt(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            int node = (offset + i) & (nodeCount - 1);
+            if (!leased[node] && this.insertLease(node)) {
+                return this.newLease(node);
+            }
+        }
+        for (int node : expiredNodes) {
+            long expiresAt = System.currentTimeMillis() + this.leaseMillis;
+            int updateCount = this.executeUpdate(
+                String.format(
+                    "UPDATE %s SET owner_id = ?, expires_at = ? WHERE node_id = ? AND expires_at < ?",
+                    this.tableName
+                ),
+                this.ownerId, expiresAt, node, System.currentTimeMillis()
+            );
+            if (updateCount == 1) {
+                return new Lease(node, expiresAt, this.newFactory(node));
+            }
+        }
+        throw new IdentifierGenerationException(
+            String.format("All the %d TSID nodes of the [%s] table are leased", nodeCount, this.tableName)
+        );
+    }
+
+    private boolean insertLease(int node) throws SQLException {
+        try {
+            this.executeUpdate(
+                String.format("INSERT INTO %s (node_id, owner_id, expires_at) VALUES (?, ?, ?)", this.tableName),
+                node, this.ownerId, System.currentTimeMillis() + this.leaseMillis
+            );
+            return true;
+        } catch (SQLException e) {
+            // another JVM leased the same node in the meantime
+            LogUtils.LOGGER.debug("Could not lease the TSID node [{}]", node, e);
+            return false;
+        }
+    }
+
+    private Lease newLease(int node) {
+        return new Lease(node, System.currentTimeMillis() + this.leaseMillis, this.newFactory(node));
+    }
+
+    private TSID.Factory newFactory(int node) {
+        return TSID.Factory.builder()
+            .withNode(node)
+            .withNodeBits(this.nodeBits)
+            .withRandomFunction(TSID.Factory.THREAD_LOCAL_RANDOM_FUNCTION)
+            .build();
+    }
+
+    private synchronized void renewLease() {
+        Lease currentLease = this.lease;
+        if (currentLease == null) {
+            return;
+        }
+        try {
+            if (!this.renewLease(currentLease)) {
+                LogUtils.LOGGER.warn("The lease of the TSID node [{}] was lost, so a new node will be leased", currentLease.node);
+                this.stopRenewal();
+            }
+        } catch (SQLException | RuntimeException e) {
+            LogUtils.LOGGER.warn("Could not renew the lease of the TSID node [{}]", currentLease.node, e);
+            if (currentLease.isExpired()) {
+                // stop retrying, as the lease is renewed or acquired again on the next TSID generation
+                this.stopRenewal();
+            }
+        }
+    }
+
+    private void stopRenewal() {
+        this.lease = null;
+        if (this.renewal != null) {
+            this.renewal.cancel(false);
+            this.renewal = null;
+        }
+    }
+
+    private boolean renewLease(Lease currentLease) throws SQLException {
+        long expiresAt = System.currentTimeMillis() + this.leaseMillis;
+        int updateCount = this.executeUpdate(
+            String.format("UPDATE %s SET expires_at = ? WHERE node_id = ? AND owner_id = ?", this.tableName),
+            expiresAt, currentLease.node, this.ownerId
+        );
+        if (updateCount == 1) {
+            this.lease = new Lease(currentLease.node, expiresAt, currentLease.factory);
+            return true;
+        }
+        return false;
+    }
+
+    private int executeUpdate(String sql, Object... parameters) throws SQLException {
+        Connection connection = this.connectionProvider.getConnection();
+        try {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                int updateCount = statement.executeUpdate();
+                commit(connection);
+                return updateCount;
+            } catch (SQLException e) {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+                throw e;
+            }
+        } finally {
+            this.connectionProvider.closeConnection(connection);
+        }
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * Holds the leased node, the lease expiration timestamp, and the {@link TSID.Factory} of the node.
+     */
+    private static final class Lease {
+
+        private final int node;
+
+        private final long expiresAt;
+
+        private final TSID.Factory factory;
+
+        Lease(int node, long expiresAt, TSID.Factory factory) {
+            this.node = node;
+            this.expiresAt = expiresAt;
+            this.factory = factory;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= this.expiresAt;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.hypersistence.utils.hibernate.id;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+
+/**
+ * The {@code LeasedNodeTsidIntegrator} releases the TSID nodes leased by the {@link LeasedNodeTsidFactorySupplier}
+ * instances of a {@code SessionFactory} when the {@code SessionFactory} is closing, while its
+ * {@link ConnectionProvider} is still available.
+ * <p>
+ * It's registered automatically using the {@link java.util.ServiceLoader} mechanism.
+ *
+ * @author Vlad Mihalcea
+ */
+public class LeasedNodeTsidIntegrator implements Integrator, SessionFactoryObserver {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        sessionFactory.addObserver(this);
+    }
+
+    @Override
+    public void sessionFactoryClosing(SessionFactory sessionFactory) {
+        ConnectionProvider connectionProvider = sessionFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+        if (connectionProvider != null) {
+            LeasedNodeTsidFactorySupplier.closeAll(connectionProvider);
+        }
+    }
+}
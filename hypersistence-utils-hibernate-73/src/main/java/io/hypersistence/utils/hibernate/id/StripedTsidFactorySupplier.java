@@ -0,0 +1,247 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.tsid.TSID;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The {@code StripedTsidFactorySupplier} generates TSID values using multiple independent stripes,
+ * instead of sharing a single {@link TSID.Factory} across all threads.
+ * <p>
+ * The 22 bits following the TSID timestamp are split into the node bits, the stripe bits, and the
+ * counter bits. Every stripe owns a distinct node/stripe prefix and a lock-free counter, so the
+ * generated values are monotonic per stripe and unique across all stripes. Threads are mapped to
+ * stripes based on their identifier, so no thread-local state is created, which makes it suitable
+ * for virtual threads as well.
+ * <p>
+ * To use it, set it on the {@link Tsid} annotation:
+ * <pre><code>
+ * &commat;Id
+ * &commat;Tsid(StripedTsidFactorySupplier.class)
+ * private Long id;
+ * </code></pre>
+ * <p>
+ * By default, the node is resolved like the default {@link TSID.Factory} does it, using the {@code tsid.node}
+ * and {@code tsid.node.count} system properties, or the {@code TSID_NODE} and {@code TSID_NODE_COUNT}
+ * environment variables, falling back to a random node out of 1024. To assign the node of every JVM explicitly,
+ * extend this class and call the {@link #StripedTsidFactorySupplier(int, int, int)} constructor.
+ * <p>
+ * Since the {@link TSID.Factory} uses a global lock, the {@link TsidGenerator} and the
+ * {@link TsidValueGenerator} call {@link #generate()} instead of {@link #get()} for this supplier.
+ *
+ * @author Vlad Mihalcea
+ */
+public class StripedTsidFactorySupplier implements Supplier<TSID.Factory> {
+
+    public static final StripedTsidFactorySupplier INSTANCE = new StripedTsidFactorySupplier();
+
+    private static final int RANDOM_BITS = 22;
+
+    private static final int MAX_STRIPE_BITS = 8;
+
+    private static final int MIN_COUNTER_BITS = 2;
+
+    private static final int DEFAULT_NODE_BITS = 10;
+
+    private static final String NODE_PROPERTY = "tsid.node";
+
+    private static final String NODE_COUNT_PROPERTY = "tsid.node.count";
+
+    private final int node;
+
+    private final int nodeBits;
+
+    private final int stripeMask;
+
+    private final Stripe[] stripes;
+
+    /**
+     * Create a supplier using the node configured for the default {@link TSID.Factory}, or a random one,
+     * and as many stripes as the next power of two of the number of available processors.
+     */
+    public StripedTsidFactorySupplier() {
+        this(defaultNodeBits());
+    }
+
+    private StripedTsidFactorySupplier(int nodeBits) {
+        this(defaultNode(nodeBits), nodeBits, defaultStripeBits(nodeBits));
+    }
+
+    /**
+     * Create a supplier using the given node and stripe configuration.
+     *
+     * @param node       the node identifier of the current JVM
+     * @param nodeBits   the number of bits used by the node identifier
+     * @param stripeBits the number of bits used by the stripe identifier
+     */
+    public StripedTsidFactorySupplier(int node, int nodeBits, int stripeBits) {
+        if (nodeBits < 0 || stripeBits < 0 || nodeBits + stripeBits > RANDOM_BITS) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "The node bits [%d] and stripe bits [%d] must not exceed %d bits!",
+                    nodeBits,
+                    stripeBits,
+                    RANDOM_BITS
+                )
+            );
+        }
+        if (node < 0 || node >= (1 << nodeBits)) {
+            throw new IllegalArgumentException(
+                String.format("The node [%d] does not fit in %d bits!", node, nodeBits)
+            );
+        }
+        this.node = node;
+        this.nodeBits = nodeBits;
+        int counterBits = RANDOM_BITS - nodeBits - stripeBits;
+        int stripeCount = 1 << stripeBits;
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            long prefix = (((long) node << stripeBits) | i) << counterBits;
+            this.stripes[i] = new Stripe(prefix, counterBits);
+        }
+    }
+
+    /**
+     * Generate a new TSID using the stripe of the current thread.
+     *
+     * @return new TSID
+     */
+    public TSID generate() {
+        int stripeIndex = (int) (Thread.currentThread().getId() & this.stripeMask);
+        return new TSID(this.stripes[stripeIndex].next(1));
+    }
+
+    /**
+     * Generate the given number of TSID values using the stripe of the current thread.
+     * The values are reserved using a single counter update for every millisecond they span.
+     *
+     * @param count the number of TSID values to generate
+     * @return new TSID values
+     */
+    public TSID[] generate(int count) {
+        int stripeIndex = (int) (Thread.currentThread().getId() & this.stripeMask);
+        Stripe stripe = this.stripes[stripeIndex];
+        TSID[] tsids = new TSID[count];
+        int index = 0;
+        while (index < count) {
+            int blockSize = stripe.blockSize(count - index);
+            long firstValue = stripe.next(blockSize);
+            for (int i = 0; i < blockSize; i++) {
+                tsids[index++] = new TSID(firstValue + i);
+            }
+        }
+        return tsids;
+    }
+
+    /**
+     * Get a {@link TSID.Factory} for the node of this supplier. Note that this factory is not striped,
+     * and its values are not coordinated with the ones generated by {@link #generate()}.
+     *
+     * @return {@link TSID.Factory} for the node of this supplier
+     */
+    @Override
+    public TSID.Factory get() {
+        return TSID.Factory.builder()
+            .withNode(this.node)
+            .withNodeBits(this.nodeBits)
+            .withRandomFunction(TSID.Factory.THREAD_LOCAL_RANDOM_FUNCTION)
+            .build();
+    }
+
+    private static int defaultStripeBits(int nodeBits) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripeBits = 32 - Integer.numberOfLeadingZeros(Math.max(processors - 1, 0));
+        return Math.max(Math.min(stripeBits, Math.min(MAX_STRIPE_BITS, RANDOM_BITS - nodeBits - MIN_COUNTER_BITS)), 0);
+    }
+
+    private static int defaultNodeBits() {
+        Integer nodeCount = getIntegerProperty(NODE_COUNT_PROPERTY);
+        if (nodeCount == null) {
+            return DEFAULT_NODE_BITS;
+        }
+        return 32 - Integer.numberOfLeadingZeros(Math.max(nodeCount - 1, 0));
+    }
+
+    private static int defaultNode(int nodeBits) {
+        Integer node = getIntegerProperty(NODE_PROPERTY);
+        if (node != null) {
+            return node;
+        }
+        return nodeBits > 0 ? ThreadLocalRandom.current().nextInt(1 << nodeBits) : 0;
+    }
+
+    private static Integer getIntegerProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.isEmpty()) {
+            value = System.getenv(name.toUpperCase(Locale.ROOT).replace('.', '_'));
+        }
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.decode(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                String.format("The [%s] setting [%s] is not a valid number!", name, value), e
+            );
+        }
+    }
+
+    /**
+     * Generates monotonic values for a given node/stripe prefix.
+     */
+    private static final class Stripe {
+
+        private final long prefix;
+
+        private final long counterMask;
+
+        private final AtomicLong lastValue = new AtomicLong();
+
+        Stripe(long prefix, int counterBits) {
+            this.prefix = prefix;
+            this.counterMask = (1L << counterBits) - 1;
+        }
+
+        /**
+         * Get the number of values that can be reserved at once, which is limited by the counter capacity.
+         */
+        int blockSize(int count) {
+            return (int) Math.min(count, this.counterMask + 1);
+        }
+
+        /**
+         * Reserve the given number of consecutive values, which must not exceed the counter capacity.
+         *
+         * @return the first reserved value
+         */
+        long next(int count) {
+            long time = System.currentTimeMillis() - TSID.TSID_EPOCH;
+            while (true) {
+                long last = this.lastValue.get();
+                long lastTime = last >>> RANDOM_BITS;
+                long first;
+                if (time > lastTime) {
+                    // start the counter from a random value in its lower half to avoid overflowing it
+                    long counter = ThreadLocalRandom.current().nextLong() & (this.counterMask >>> 1);
+                    if (counter + count - 1 > this.counterMask) {
+                        counter = 0;
+                    }
+                    first = (time << RANDOM_BITS) | this.prefix | counter;
+                } else if ((last & this.counterMask) + count <= this.counterMask) {
+                    first = last + 1;
+                } else {
+                    // the counter would overflow, so borrow the next millisecond
+                    first = ((lastTime + 1) << RANDOM_BITS) | this.prefix;
+                }
+                if (this.lastValue.compareAndSet(last, first + count - 1)) {
+                    return first;
+                }
+            }
+        }
+    }
+}
@@ -22,6 +22,9 @@ import static java.lang.annotation.ElementType.METHOD;
  * You can use the {@code @Tsid} annotation to annotate {@link Long}, {@link String},
  * or {@link TSID} fields, including entity identifiers and general columns.
  *
+ * <p>Since the TSID values embed their creation timestamp, time-bounded queries can filter
+ * the identifiers using the {@link TsidTimeWindow} instead of a separate timestamp column.</p>
+ *
  * @author Vlad Mihalcea
  */
 @IdGeneratorType(TsidGenerator.class)
@@ -32,7 +35,9 @@ public @interface Tsid {
 
     /**
      * Specify the class that can provide the custom {@link TSID.Factory}.
-     * By default, the {@link FactorySupplier} is used.
+     * By default, the {@link FactorySupplier} is used. To reduce the contention of
+     * the shared {@link TSID.Factory}, use the {@link StripedTsidFactorySupplier}. To assign a unique
+     * node to every JVM without any manual configuration, use the {@link LeasedNodeTsidFactorySupplier}.
      *
      * @return the {@link TSID.Factory} supplier.
      */
@@ -13,9 +13,11 @@ import java.util.function.Supplier;
 /**
  * @author Vlad Mihalcea
  */
-public class TsidGenerator implements IdentifierGenerator {
+public class TsidGenerator implements IdentifierGenerator, BulkIdentifierGenerator {
 
-    private final TSID.Factory tsidFactory;
+    private final Supplier<TSID> tsidSupplier;
+
+    private final StripedTsidFactorySupplier stripedTsidFactorySupplier;
 
     private AttributeType idType;
 
@@ -24,18 +26,86 @@ public class TsidGenerator implements IdentifierGenerator {
         Member idMember,
         GeneratorCreationContext creationContext) {
         idType = AttributeType.valueOf(ReflectionUtils.getMemberType(idMember));
-        Class<? extends Supplier<TSID.Factory>> tsidSupplierClass = config.value();
-        if(tsidSupplierClass.equals(Tsid.FactorySupplier.class)) {
-            tsidFactory = Tsid.FactorySupplier.INSTANCE.get();
-        } else {
-            Supplier<TSID.Factory> factorySupplier = ReflectionUtils.newInstance(tsidSupplierClass);
-            tsidFactory = factorySupplier.get();
-        }
+        Supplier<TSID.Factory> factorySupplier = factorySupplier(config.value(), creationContext);
+        tsidSupplier = tsidSupplier(factorySupplier);
+        stripedTsidFactorySupplier = factorySupplier instanceof StripedTsidFactorySupplier ?
+            (StripedTsidFactorySupplier) factorySupplier :
+            null;
     }
 
     @Override
     public Object generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
-        return idType.cast(tsidFactory.generate());
+        Object reservedIdentifier = IdentifierReservation.nextIdentifier(this);
+        if (reservedIdentifier != null) {
+            return reservedIdentifier;
+        }
+        return idType.cast(tsidSupplier.get());
+    }
+
+    /**
+     * Generate the given number of identifiers at once. When using the {@link StripedTsidFactorySupplier},
+     * the values are reserved with a single counter update, while for any other supplier,
+     * the provided {@link TSID.Factory} is called for every value.
+     *
+     * @param session the current session
+     * @param count   the number of identifiers to generate
+     * @return the generated identifiers
+     */
+    @Override
+    public Object[] generate(SharedSessionContractImplementor session, int count) {
+        Object[] identifiers = new Object[count];
+        if (stripedTsidFactorySupplier != null) {
+            TSID[] tsids = stripedTsidFactorySupplier.generate(count);
+            for (int i = 0; i < count; i++) {
+                identifiers[i] = idType.cast(tsids[i]);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                identifiers[i] = idType.cast(tsidSupplier.get());
+            }
+        }
+        return identifiers;
+    }
+
+    /**
+     * Resolve the function generating TSID values for the given {@link TSID.Factory} supplier.
+     * The {@link StripedTsidFactorySupplier} and the {@link LeasedNodeTsidFactorySupplier}
+     * generate the values themselves, while for any other supplier, the provided {@link TSID.Factory} is used.
+     *
+     * @param tsidSupplierClass the {@link TSID.Factory} supplier class
+     * @param creationContext   the generator creation context
+     * @return the function generating TSID values
+     */
+    static Supplier<TSID> tsidSupplier(
+            Class<? extends Supplier<TSID.Factory>> tsidSupplierClass,
+            GeneratorCreationContext creationContext) {
+        return tsidSupplier(factorySupplier(tsidSupplierClass, creationContext));
+    }
+
+    private static Supplier<TSID> tsidSupplier(Supplier<TSID.Factory> factorySupplier) {
+        if(factorySupplier instanceof StripedTsidFactorySupplier) {
+            return ((StripedTsidFactorySupplier) factorySupplier)::generate;
+        }
+        if(factorySupplier instanceof LeasedNodeTsidFactorySupplier) {
+            // the node is leased on first use, since the lease table might not exist yet
+            return ((LeasedNodeTsidFactorySupplier) factorySupplier)::generate;
+        }
+        return factorySupplier.get()::generate;
+    }
+
+    private static Supplier<TSID.Factory> factorySupplier(
+            Class<? extends Supplier<TSID.Factory>> tsidSupplierClass,
+            GeneratorCreationContext creationContext) {
+        if(tsidSupplierClass.equals(Tsid.FactorySupplier.class)) {
+            return Tsid.FactorySupplier.INSTANCE;
+        }
+        if(tsidSupplierClass.equals(StripedTsidFactorySupplier.class)) {
+            return StripedTsidFactorySupplier.INSTANCE;
+        }
+        if(LeasedNodeTsidFactorySupplier.class.isAssignableFrom(tsidSupplierClass)) {
+            return LeasedNodeTsidFactorySupplier.forCreationContext(tsidSupplierClass, creationContext);
+        }
+        return ReflectionUtils.newInstance(tsidSupplierClass);
     }
 
     enum AttributeType {
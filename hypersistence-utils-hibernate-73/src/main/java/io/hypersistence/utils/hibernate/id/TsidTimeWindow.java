@@ -0,0 +1,205 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.tsid.TSID;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import java.time.Instant;
+
+/**
+ * The {@code TsidTimeWindow} turns a time window into a range of TSID values, so that a
+ * time-bounded query can filter the {@link Tsid} entity identifiers using the Primary Key index,
+ * instead of using a separate timestamp column.
+ * <p>
+ * The window bounds are inclusive and have a millisecond precision. The minimum TSID of an
+ * {@link Instant} has all the node and counter bits cleared, while the maximum TSID has all of
+ * them set, so the range matches the TSID values generated by any node.
+ * <p>
+ * Using the Criteria API:
+ * <pre><code>
+ * TsidTimeWindow window = TsidTimeWindow.between(
+ *     Instant.now().minus(1, ChronoUnit.HOURS),
+ *     Instant.now()
+ * );
+ *
+ * query.where(window.toPredicate(builder, post.get("id")));
+ * </code></pre>
+ * <p>
+ * Using JPQL:
+ * <pre><code>
+ * List&lt;Post&gt; posts = window.bind(
+ *     entityManager.createQuery(
+ *         "select p from Post p where " + window.toJpqlPredicate("p.id"), Post.class),
+ *     Long.class
+ * )
+ * .getResultList();
+ * </code></pre>
+ *
+ * @author Vlad Mihalcea
+ */
+public class TsidTimeWindow {
+
+    public static final String MIN_TSID_PARAMETER = "minTsid";
+
+    public static final String MAX_TSID_PARAMETER = "maxTsid";
+
+    private static final int RANDOM_BITS = 22;
+
+    private static final long RANDOM_MASK = (1L << RANDOM_BITS) - 1;
+
+    // the sign bit is left unused, so that the TSID values keep the same order as their long values
+    private static final long MAX_TIME = (1L << (Long.SIZE - RANDOM_BITS - 1)) - 1;
+
+    private final long minTsid;
+
+    private final long maxTsid;
+
+    private TsidTimeWindow(long minTsid, long maxTsid) {
+        this.minTsid = minTsid;
+        this.maxTsid = maxTsid;
+    }
+
+    /**
+     * Create a window that matches the TSID values generated between the given instants, both inclusive.
+     *
+     * @param from the start of the window
+     * @param to   the end of the window
+     * @return the TSID time window
+     */
+    public static TsidTimeWindow between(Instant from, Instant to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(
+                String.format("The window start [%s] must not be after the window end [%s]!", from, to)
+            );
+        }
+        return new TsidTimeWindow(minTsid(from), maxTsid(to));
+    }
+
+    /**
+     * Create a window that matches the TSID values generated since the given instant, inclusive.
+     *
+     * @param from the start of the window
+     * @return the TSID time window
+     */
+    public static TsidTimeWindow since(Instant from) {
+        return new TsidTimeWindow(minTsid(from), Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the smallest TSID value that could be generated at the given instant.
+     *
+     * @param instant the instant
+     * @return the smallest TSID value of the given instant
+     */
+    public static long minTsid(Instant instant) {
+        return tsidTime(instant) << RANDOM_BITS;
+    }
+
+    /**
+     * Get the largest TSID value that could be generated at the given instant.
+     *
+     * @param instant the instant
+     * @return the largest TSID value of the given instant
+     */
+    public static long maxTsid(Instant instant) {
+        return minTsid(instant) | RANDOM_MASK;
+    }
+
+    /**
+     * Get the {@link String} representation of the smallest TSID value that could be generated at the given instant.
+     *
+     * @param instant the instant
+     * @return the smallest TSID {@link String} value of the given instant
+     */
+    public static String minTsidString(Instant instant) {
+        return TSID.from(minTsid(instant)).toString();
+    }
+
+    /**
+     * Get the {@link String} representation of the largest TSID value that could be generated at the given instant.
+     *
+     * @param instant the instant
+     * @return the largest TSID {@link String} value of the given instant
+     */
+    public static String maxTsidString(Instant instant) {
+        return TSID.from(maxTsid(instant)).toString();
+    }
+
+    public long getMinTsid() {
+        return minTsid;
+    }
+
+    public long getMaxTsid() {
+        return maxTsid;
+    }
+
+    public String getMinTsidString() {
+        return TSID.from(minTsid).toString();
+    }
+
+    public String getMaxTsidString() {
+        return TSID.from(maxTsid).toString();
+    }
+
+    /**
+     * Build the Criteria API predicate matching the identifiers within this window.
+     * The identifier can be a {@link Long}, {@link String}, or {@link TSID} attribute.
+     *
+     * @param builder the Criteria API builder
+     * @param idPath  the identifier path
+     * @return the identifier range predicate
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate toPredicate(CriteriaBuilder builder, Path<?> idPath) {
+        TsidGenerator.AttributeType idType = TsidGenerator.AttributeType.valueOf(idPath.getJavaType());
+        return builder.between(
+            (Expression<Comparable>) idPath,
+            (Comparable) idType.cast(TSID.from(minTsid)),
+            (Comparable) idType.cast(TSID.from(maxTsid))
+        );
+    }
+
+    /**
+     * Build the JPQL predicate matching the identifiers within this window,
+     * which uses the {@link #MIN_TSID_PARAMETER} and {@link #MAX_TSID_PARAMETER} parameters.
+     *
+     * @param idPath the identifier path, e.g., {@code p.id}
+     * @return the identifier range predicate
+     */
+    public String toJpqlPredicate(String idPath) {
+        return String.format(
+            "%s between :%s and :%s",
+            idPath,
+            MIN_TSID_PARAMETER,
+            MAX_TSID_PARAMETER
+        );
+    }
+
+    /**
+     * Bind the parameters of the {@link #toJpqlPredicate(String)} predicate.
+     *
+     * @param query  the query using the predicate
+     * @param idType the identifier type, which can be {@link Long}, {@link String}, or {@link TSID}
+     * @param <Q>    the query type
+     * @return the query
+     */
+    public <Q extends Query> Q bind(Q query, Class<?> idType) {
+        TsidGenerator.AttributeType attributeType = TsidGenerator.AttributeType.valueOf(idType);
+        query.setParameter(MIN_TSID_PARAMETER, attributeType.cast(TSID.from(minTsid)));
+        query.setParameter(MAX_TSID_PARAMETER, attributeType.cast(TSID.from(maxTsid)));
+        return query;
+    }
+
+    private static long tsidTime(Instant instant) {
+        long time = instant.toEpochMilli() - TSID.TSID_EPOCH;
+        if (time < 0 || time > MAX_TIME) {
+            throw new IllegalArgumentException(
+                String.format("The [%s] instant is outside the TSID time range!", instant)
+            );
+        }
+        return time;
+    }
+}
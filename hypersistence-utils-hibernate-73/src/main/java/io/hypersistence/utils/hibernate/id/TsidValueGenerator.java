@@ -20,7 +20,7 @@ import java.util.function.Supplier;
  */
 public class TsidValueGenerator implements AnnotationBasedGenerator<Tsid>, BeforeExecutionGenerator {
 
-    private TSID.Factory factory;
+    private Supplier<TSID> tsidSupplier;
 
     private TsidGenerator.AttributeType idTyattributeTypee;
 
@@ -31,20 +31,13 @@ public class TsidValueGenerator implements AnnotationBasedGenerator<Tsid>, Befor
     public void initialize(Tsid tsidAnnotation, Member member, GeneratorCreationContext generatorCreationContext) {
         idTyattributeTypee = TsidGenerator.AttributeType.valueOf(ReflectionUtils.getMemberType(member));
         if (tsidAnnotation != null) {
-            Class<? extends Supplier<TSID.Factory>> supplierClass = tsidAnnotation.value();
-
-            if (supplierClass.equals(Tsid.FactorySupplier.class)) {
-                this.factory = Tsid.FactorySupplier.INSTANCE.get();
-            } else {
-                Supplier<TSID.Factory> supplier = ReflectionUtils.newInstance(supplierClass);
-                this.factory = supplier.get();
-            }
+            this.tsidSupplier = TsidGenerator.tsidSupplier(tsidAnnotation.value(), generatorCreationContext);
         }
     }
 
     @Override
     public Object generate(SharedSessionContractImplementor sharedSessionContractImplementor, Object o, Object o1, EventType eventType) {
-        return idTyattributeTypee.cast(factory.generate());
+        return idTyattributeTypee.cast(tsidSupplier.get());
     }
 
     @Override
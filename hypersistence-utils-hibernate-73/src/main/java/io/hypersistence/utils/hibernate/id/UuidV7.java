@@ -0,0 +1,31 @@
+package io.hypersistence.utils.hibernate.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.annotations.ValueGenerationType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+
+/**
+ * The {@code @UuidV7} annotation can be added to entity identifiers or other fields,
+ * indicating that the value will be assigned a time-ordered UUID version 7 automatically.
+ *
+ * <p>On identifier fields, {@link UuidV7Generator} is used for value generation.
+ * On non-identifier fields, {@link UuidV7ValueGenerator} is used.</p>
+ *
+ * You can use the {@code @UuidV7} annotation to annotate {@link java.util.UUID} or {@link String} fields.
+ * To store the {@link java.util.UUID} values in 16 bytes instead of a 36-character string, map the attribute using the
+ * {@link io.hypersistence.utils.hibernate.type.basic.BinaryUuidType}.
+ *
+ * @author Vlad Mihalcea
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@ValueGenerationType(generatedBy = UuidV7ValueGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({FIELD, METHOD})
+public @interface UuidV7 {
+}
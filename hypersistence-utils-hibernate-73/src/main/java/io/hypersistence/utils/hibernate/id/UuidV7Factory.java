@@ -0,0 +1,83 @@
+package io.hypersistence.utils.hibernate.id;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code UuidV7Factory} generates time-ordered UUID version 7 values, as defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9562#name-uuid-version-7">RFC 9562</a>.
+ * <p>
+ * The 48-bit Unix timestamp is followed by a 12-bit counter, so the values generated by this factory are
+ * strictly monotonic, even when generated within the same millisecond. The counter is incremented using a
+ * compare-and-set operation, so no lock is acquired, and the remaining 62 bits are random.
+ *
+ * @author Vlad Mihalcea
+ */
+public class UuidV7Factory {
+
+    public static final UuidV7Factory INSTANCE = new UuidV7Factory();
+
+    private static final int COUNTER_BITS = 12;
+
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private static final long VERSION = 0x7000L;
+
+    private static final long VARIANT = 0x8000000000000000L;
+
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    private final AtomicLong lastValue = new AtomicLong();
+
+    /**
+     * Generate a new UUID version 7 value.
+     *
+     * @return new UUID version 7 value
+     */
+    public UUID generate() {
+        long value = nextValue();
+        long timestamp = value >>> COUNTER_BITS;
+        long mostSigBits = (timestamp << 16) | VERSION | (value & COUNTER_MASK);
+        long leastSigBits = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Get the creation {@link Instant} of the given UUID version 7 value.
+     *
+     * @param uuid UUID version 7 value
+     * @return the creation {@link Instant}
+     */
+    public static Instant getInstant(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException(
+                String.format("The [%s] value is not a UUID version 7!", uuid)
+            );
+        }
+        return Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16);
+    }
+
+    private long nextValue() {
+        long time = System.currentTimeMillis();
+        while (true) {
+            long last = this.lastValue.get();
+            long lastTime = last >>> COUNTER_BITS;
+            long next;
+            if (time > lastTime) {
+                // start the counter from a random value in its lower half to avoid overflowing it
+                long counter = ThreadLocalRandom.current().nextLong() & (COUNTER_MASK >>> 1);
+                next = (time << COUNTER_BITS) | counter;
+            } else if ((last & COUNTER_MASK) < COUNTER_MASK) {
+                next = last + 1;
+            } else {
+                // the counter overflowed, so borrow the next millisecond
+                next = (lastTime + 1) << COUNTER_BITS;
+            }
+            if (this.lastValue.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.common.ReflectionUtils;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.lang.reflect.Member;
+import java.util.UUID;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class UuidV7Generator implements IdentifierGenerator {
+
+    private final AttributeType idType;
+
+    public UuidV7Generator(
+        UuidV7 config,
+        Member idMember,
+        GeneratorCreationContext creationContext) {
+        idType = AttributeType.valueOf(ReflectionUtils.getMemberType(idMember));
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return idType.cast(UuidV7Factory.INSTANCE.generate());
+    }
+
+    enum AttributeType {
+        UUID {
+            @Override
+            public Object cast(java.util.UUID uuid) {
+                return uuid;
+            }
+        },
+        STRING {
+            @Override
+            public Object cast(java.util.UUID uuid) {
+                return uuid.toString();
+            }
+        };
+
+        public abstract Object cast(java.util.UUID uuid);
+
+        static AttributeType valueOf(Class clazz) {
+            if(java.util.UUID.class.isAssignableFrom(clazz)) {
+                return UUID;
+            } else if (String.class.isAssignableFrom(clazz)) {
+                return STRING;
+            } else {
+                throw new HibernateException(
+                    String.format(
+                        "The @UuidV7 annotation on [%s] can only be placed on a UUID or String entity attribute!",
+                        clazz
+                    )
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.common.ReflectionUtils;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.GeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Hibernate ValueGenerator for generating UUID version 7 values on non-ID entity fields.
+ *
+ * <p>Supports automatic UUID version 7 generation for regular columns annotated with {@link UuidV7},
+ * unlike {@link UuidV7Generator} which is for entity IDs only.</p>
+ *
+ * @author Vlad Mihalcea
+ */
+public class UuidV7ValueGenerator implements AnnotationBasedGenerator<UuidV7>, BeforeExecutionGenerator {
+
+    private UuidV7Generator.AttributeType attributeType;
+
+    public UuidV7ValueGenerator() {
+    }
+
+    @Override
+    public void initialize(UuidV7 uuidV7Annotation, Member member, GeneratorCreationContext generatorCreationContext) {
+        attributeType = UuidV7Generator.AttributeType.valueOf(ReflectionUtils.getMemberType(member));
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return attributeType.cast(UuidV7Factory.INSTANCE.generate());
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,91 @@
+package io.hypersistence.utils.hibernate.type.basic;
+
+import io.hypersistence.utils.hibernate.type.ImmutableType;
+import io.hypersistence.utils.hibernate.type.util.Configuration;
+import jakarta.persistence.AttributeConverter;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.java.UUIDJavaType;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Maps a Java {@link UUID} object to a 16-byte column type, instead of a 36-character string.
+ * <p>
+ * On PostgreSQL, the value is stored in a native {@code uuid} column, while on databases that
+ * don't have a native UUID type, like MySQL, the value is stored in a {@code BINARY(16)} column.
+ * This way, the time-ordered values generated by {@link io.hypersistence.utils.hibernate.id.UuidV7}
+ * take less space in the table and index pages.
+ *
+ * @author Vlad Mihalcea
+ */
+public class BinaryUuidType extends ImmutableType<UUID> {
+
+    public static final BinaryUuidType INSTANCE = new BinaryUuidType();
+
+    public BinaryUuidType() {
+        super(UUID.class);
+    }
+
+    public BinaryUuidType(Configuration configuration) {
+        super(UUID.class, configuration);
+    }
+
+    public BinaryUuidType(org.hibernate.type.spi.TypeBootstrapContext typeBootstrapContext) {
+        this(new Configuration(typeBootstrapContext.getConfigurationSettings()));
+    }
+
+    @Override
+    public int getSqlType() {
+        return SqlTypes.UUID;
+    }
+
+    /**
+     * The identity converter makes Hibernate resolve the column type using the {@link JdbcType}
+     * the current dialect registers for {@link SqlTypes#UUID}, which is either a native UUID
+     * or a {@code BINARY(16)} column type.
+     */
+    @Override
+    public AttributeConverter<UUID, UUID> getValueConverter() {
+        return UuidConverter.INSTANCE;
+    }
+
+    @Override
+    protected UUID get(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner) throws SQLException {
+        return uuidJdbcType(session).getExtractor(UUIDJavaType.INSTANCE).extract(rs, position, session);
+    }
+
+    @Override
+    protected void set(PreparedStatement st, UUID value, int index, SharedSessionContractImplementor session) throws SQLException {
+        uuidJdbcType(session).getBinder(UUIDJavaType.INSTANCE).bind(st, value, index, session);
+    }
+
+    @Override
+    public UUID fromStringValue(CharSequence sequence) throws HibernateException {
+        return sequence != null ? UUID.fromString(sequence.toString()) : null;
+    }
+
+    private JdbcType uuidJdbcType(SharedSessionContractImplementor session) {
+        return session.getTypeConfiguration().getJdbcTypeRegistry().getDescriptor(SqlTypes.UUID);
+    }
+
+    public static class UuidConverter implements AttributeConverter<UUID, UUID> {
+
+        public static final UuidConverter INSTANCE = new UuidConverter();
+
+        @Override
+        public UUID convertToDatabaseColumn(UUID attribute) {
+            return attribute;
+        }
+
+        @Override
+        public UUID convertToEntityAttribute(UUID dbData) {
+            return dbData;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.hypersistence.utils.spring.annotation;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.lang.annotation.*;
+
+/**
+ * The ReadOnlyQuery annotation instructs Spring Data JPA to load the entities
+ * returned by a repository query method in read-only mode, so that Hibernate
+ * does not keep their loaded state snapshot for the flush-time dirty checking.
+ *
+ * @author Vlad Mihalcea
+ * @since 3.15.3
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Documented
+@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+public @interface ReadOnlyQuery {
+}
@@ -1,12 +1,19 @@
 package io.hypersistence.utils.spring.repository;
 
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.QueryByExampleExecutor;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * The {@code BaseJpaRepository} fixes many of the problems that the default Spring Data {@code JpaRepository}
@@ -29,8 +36,98 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
 
     List<T> findAllById(Iterable<ID> ids);
 
+    /**
+     * The findById method fetches the entity with the provided identifier using the given {@link ReadMode}.
+     * Read-only and stateless entities don't need the loaded state snapshot used by the dirty checking mechanism,
+     * so they use less memory, and they don't add any overhead to the flush.
+     *
+     * @param id       entity identifier
+     * @param readMode how the entity is loaded
+     * @return the entity, if found
+     */
+    Optional<T> findById(ID id, ReadMode readMode);
+
+    /**
+     * The findAllById method fetches the entities matching the provided identifiers using the given
+     * {@link ReadMode}, like {@link #findById(Object, ReadMode)}.
+     *
+     * @param ids      entity identifiers
+     * @param readMode how the entities are loaded
+     * @return the found entities
+     */
+    List<T> findAllById(Iterable<ID> ids, ReadMode readMode);
+
+    /**
+     * The findAllByIdOrdered method fetches the entities matching the provided identifiers like
+     * {@link #findAllById(Iterable)}, but returns them in the order of the provided identifiers,
+     * using a {@code null} element for every identifier that has no matching entity.
+     *
+     * @param ids entity identifiers
+     * @return the entities, in the order of the provided identifiers
+     */
+    List<T> findAllByIdOrdered(Iterable<ID> ids);
+
+    /**
+     * Find the entities with the provided identifiers, fetching the attributes of the provided {@link EntityGraph}
+     * without multiplying the result set rows.
+     * <p>
+     * The entities are loaded along with their single-valued graph attributes by one query, and then every
+     * collection attribute of the graph, including the ones nested in subgraphs, is fetched by a separate query
+     * filtering the entities by their identifiers and following the path that leads to the collection,
+     * so the number of rows grows with the sum of the collection sizes, instead of their product.
+     * All the queries run in the current Persistence Context, which initializes the collections of the entities
+     * loaded by the first query.
+     *
+     * @param ids         entity identifiers
+     * @param entityGraph graph of the attributes to fetch
+     * @return entities with the fetched graph attributes
+     */
+    List<T> findAllByIdWithGraph(Iterable<ID> ids, EntityGraph<T> entityGraph);
+
+    /**
+     * Find the entities with the provided identifiers, fetching the attributes of the named {@link EntityGraph}
+     * without multiplying the result set rows.
+     *
+     * @param ids             entity identifiers
+     * @param entityGraphName name of the graph of the attributes to fetch
+     * @return entities with the fetched graph attributes
+     * @see #findAllByIdWithGraph(Iterable, EntityGraph)
+     */
+    List<T> findAllByIdWithGraph(Iterable<ID> ids, String entityGraphName);
+
     long count();
 
+    /**
+     * The estimatedCount method returns the number of entities estimated from the table statistics
+     * gathered by the database, like {@code pg_class.reltuples} on PostgreSQL, so that large tables don't have
+     * to be scanned. When the estimate is below 10,000 rows, or when the database provides no estimate,
+     * the exact {@link #count()} is returned instead.
+     *
+     * @return the estimated number of entities
+     */
+    long estimatedCount();
+
+    /**
+     * The estimatedCount method returns the number of entities estimated from the table statistics
+     * gathered by the database, falling back to the exact {@link #count()} when the estimate is below the given
+     * threshold, or when the database provides no estimate.
+     *
+     * @param exactCountThreshold the estimated number of rows below which the exact count is returned
+     * @return the estimated number of entities
+     */
+    long estimatedCount(long exactCountThreshold);
+
+    /**
+     * The findPage method fetches the requested page of entities together with the total number of entities
+     * using a {@code COUNT(*) OVER()} window function, so that a single query is executed instead of the separate
+     * page and count queries. When the {@link Pageable} is not sorted, the entities are sorted by identifier.
+     * When the {@link Pageable} is unpaged, all the entities are returned, like {@code findAll(Pageable)} does.
+     *
+     * @param pageable page request
+     * @return the page of entities
+     */
+    Page<T> findPage(Pageable pageable);
+
     void delete(T entity);
 
     void deleteAllInBatch(Iterable<T> entities);
@@ -39,6 +136,33 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
 
     void deleteAllByIdInBatch(Iterable<ID> ids);
 
+    /**
+     * The deleteAllByIdInBatch method deletes the entities matching the provided identifiers using one bulk
+     * {@code DELETE} statement for every chunk of the given size, so that the statements stay within the
+     * bind parameter limits of the database. The chunk size is padded to the next power of two,
+     * so that only a few statement shapes are generated.
+     *
+     * @param ids       identifiers of the entities to delete
+     * @param chunkSize maximum number of identifiers deleted by a single statement
+     * @throws IllegalArgumentException if the chunk size is not positive
+     */
+    void deleteAllByIdInBatch(Iterable<ID> ids, int chunkSize);
+
+    /**
+     * The deleteAllByIdInChunks method deletes the entities matching the provided identifiers like
+     * {@link #deleteAllByIdInBatch(Iterable, int)}, and returns the number of deleted entities.
+     * The chunks are executed in the current transaction, so it's the caller's transaction that bounds
+     * the work. To release the locks acquired by a purge job, call this method in a separate transaction
+     * for every slice of identifiers.
+     *
+     * @param ids       identifiers of the entities to delete
+     * @param chunkSize maximum number of identifiers deleted by a single statement
+     * @return the number of deleted entities
+     * @throws UnsupportedOperationException if the entity uses a composite identifier
+     * @throws IllegalArgumentException if the chunk size is not positive
+     */
+    long deleteAllByIdInChunks(Iterable<ID> ids, int chunkSize);
+
     void flush();
 
     /**
@@ -63,7 +187,9 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
 
     /**
      * The persistAll method allows you to pass the provided entities to the {@code persist} method of the
-     * underlying JPA {@code EntityManager}.
+     * underlying JPA {@code EntityManager}. If the identifier generator is a
+     * {@link io.hypersistence.utils.hibernate.id.BulkIdentifierGenerator}, like the {@code TsidGenerator}
+     * or the {@code BatchSequenceGenerator}, the identifiers of all entities are generated up front in a single call.
      *
      * @param entities entities to persist
      * @param <S>    entity type
@@ -73,7 +199,8 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
 
     /**
      * The persistAll method allows you to pass the provided entities to the {@code persist} method of the
-     * underlying JPA {@code EntityManager} and call {@code flush} afterwards.
+     * underlying JPA {@code EntityManager} and call {@code flush} afterwards. The identifiers are generated
+     * like in {@link #persistAll(Iterable)}.
      *
      * @param entities entities to persist
      * @param <S>    entity type
@@ -81,6 +208,90 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
      */
     <S extends T> List<S> persistAllAndFlush(Iterable<S> entities);
 
+    /**
+     * The persistAllInChunks method passes the provided entities to the {@code persist} method of the
+     * underlying JPA {@code EntityManager}, and it flushes and clears the Persistence Context every time
+     * the number of persisted entities reaches the JDBC batch size. This way, the entities are
+     * consumed lazily, and the Persistence Context does not grow with the number of entities.
+     * <p>
+     * Note that clearing the Persistence Context detaches all the managed entities, including the ones
+     * that were loaded prior to calling this method.
+     *
+     * @param entities entities to persist
+     * @param <S>    entity type
+     * @return the number of persisted entities
+     */
+    <S extends T> long persistAllInChunks(Iterator<S> entities);
+
+    /**
+     * The persistAllInChunks method passes the entities of the provided {@link Stream} to the {@code persist}
+     * method of the underlying JPA {@code EntityManager}, flushing and clearing the Persistence Context every time
+     * the number of persisted entities reaches the JDBC batch size. The {@link Stream} is closed afterward.
+     *
+     * @param entities entities to persist
+     * @param <S>    entity type
+     * @return the number of persisted entities
+     */
+    <S extends T> long persistAllInChunks(Stream<S> entities);
+
+    /**
+     * The insertAll method passes the provided entities to the {@code insertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size.
+     * Unlike {@link #persistAll(Iterable)}, the entities are not attached to the Persistence Context,
+     * so there's no snapshot to keep and no dirty checking to run at flush time, which makes it
+     * suitable for append-only tables.
+     *
+     * @param entities entities to insert
+     * @param <S>    entity type
+     * @return the number of inserted entities
+     */
+    <S extends T> long insertAll(Iterable<S> entities);
+
+    /**
+     * The insertAllAndFlush method passes the provided entities to the {@code insertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * and calls {@code flush} afterwards.
+     *
+     * @param entities entities to insert
+     * @param <S>    entity type
+     * @return the number of inserted entities
+     */
+    <S extends T> long insertAllAndFlush(Iterable<S> entities);
+
+    /**
+     * The insertAllUnnest method inserts the provided entities on PostgreSQL using a single
+     * {@code INSERT INTO ... SELECT ... FROM unnest(?, ?, ...)} statement per chunk of up to 10,000 entities,
+     * each column being bound as one array parameter. Since the SQL statement does not depend on the number
+     * of rows, the database can reuse the same execution plan, no matter how many entities are inserted.
+     * <p>
+     * On other databases, or when the entity is mapped to multiple tables, uses a discriminator column,
+     * or has a database-generated identifier, the entities are passed to {@link #insertAll(Iterable)}.
+     * The same happens for the entities not yet sent by the {@code unnest} statement when a column value is bound
+     * in a way that cannot be converted to its PostgreSQL text representation.
+     *
+     * @param entities entities to insert
+     * @param <S>    entity type
+     * @return the number of inserted entities
+     */
+    <S extends T> long insertAllUnnest(Iterable<S> entities);
+
+    /**
+     * The copyAll method streams the entities of the provided {@link Stream} to the entity table
+     * using the PostgreSQL {@code COPY FROM STDIN} command. The column values are encoded by the
+     * Hibernate types of the entity mapping, and the identifiers are assigned by the entity identifier generator,
+     * so only the current chunk of entities is held in memory. The {@link Stream} is closed afterward.
+     * <p>
+     * On other databases, or when the entity is mapped to multiple tables, uses a discriminator column,
+     * or has a database-generated identifier, the entities are passed to {@link #insertAll(Iterable)}.
+     * The same happens for the entities not yet sent by the {@code COPY} command when a column value is bound
+     * in a way that cannot be converted to its PostgreSQL text representation.
+     *
+     * @param entities entities to copy
+     * @param <S>    entity type
+     * @return the number of copied entities
+     */
+    <S extends T> long copyAll(Stream<S> entities);
+
     /**
      * The persist method allows you to pass the provided entity to the {@code merge} method of the
      * underlying JPA {@code EntityManager}.
@@ -103,7 +314,8 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
 
     /**
      * The mergeAll method allows you to pass the provided entities to the {@code merge} method of the
-     * underlying JPA {@code EntityManager}.
+     * underlying JPA {@code EntityManager}. The existing entities that are not yet managed are loaded
+     * up front using a multi-load, so that the merge operations don't need to fetch them one by one.
      *
      * @param entities entities to merge
      * @param <S>    entity type
@@ -121,6 +333,32 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
      */
     <S extends T> List<S> mergeAllAndFlush(Iterable<S> entities);
 
+    /**
+     * The mergeAllInChunks method passes the provided entities to the {@code merge} method of the
+     * underlying JPA {@code EntityManager}, and it flushes and clears the Persistence Context every time
+     * the number of merged entities reaches the JDBC batch size. This way, the entities are
+     * consumed lazily, and the Persistence Context does not grow with the number of entities.
+     * <p>
+     * Note that clearing the Persistence Context detaches all the managed entities, including the ones
+     * that were loaded prior to calling this method.
+     *
+     * @param entities entities to merge
+     * @param <S>    entity type
+     * @return the number of merged entities
+     */
+    <S extends T> long mergeAllInChunks(Iterator<S> entities);
+
+    /**
+     * The mergeAllInChunks method passes the entities of the provided {@link Stream} to the {@code merge}
+     * method of the underlying JPA {@code EntityManager}, flushing and clearing the Persistence Context every time
+     * the number of merged entities reaches the JDBC batch size. The {@link Stream} is closed afterward.
+     *
+     * @param entities entities to merge
+     * @param <S>    entity type
+     * @return the number of merged entities
+     */
+    <S extends T> long mergeAllInChunks(Stream<S> entities);
+
     /**
      * The update method allows you to pass the provided entity to the {@code update} method of the
      * underlying JPA {@code EntityManager}.
@@ -142,8 +380,9 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
     <S extends T> S updateAndFlush(S entity);
 
     /**
-     * The updateAll method allows you to pass the provided entities to the {@code update} method of the
-     * underlying JPA {@code EntityManager}.
+     * The updateAll method allows you to pass the provided entities to the {@code updateMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * so that the UPDATE statements are sent in batches.
      *
      * @param entities entities to update
      * @param <S>    entity type
@@ -152,8 +391,9 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
     <S extends T> List<S> updateAll(Iterable<S> entities);
 
     /**
-     * The updateAllAndFlush method allows you to pass the provided entities to the {@code update} method of the
-     * underlying JPA {@code EntityManager} and call {@code flush} afterwards.
+     * The updateAllAndFlush method allows you to pass the provided entities to the {@code updateMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * and call {@code flush} afterwards.
      *
      * @param entities entities to update
      * @param <S>    entity type
@@ -161,6 +401,92 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
      */
     <S extends T> List<S> updateAllAndFlush(Iterable<S> entities);
 
+    /**
+     * The upsertAll method passes the provided entities to the {@code upsertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size.
+     * Each entity is either inserted or updated by a single statement, generated for the current dialect
+     * from the entity mapping, like {@code INSERT ... ON CONFLICT DO UPDATE} on PostgreSQL,
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL, or {@code MERGE} on H2, Oracle, or SQL Server,
+     * so there's no need to load the entities into the Persistence Context first.
+     * <p>
+     * The entities are passed chunk by chunk while iterating, so only the current chunk is held in memory.
+     * Since the upsert statements don't report whether a row was inserted or updated, the returned value
+     * is the number of submitted entities, not the number of affected rows.
+     *
+     * @param entities entities to upsert
+     * @param <S>    entity type
+     * @return the number of entities submitted to {@code upsertMultiple}
+     */
+    <S extends T> long upsertAll(Iterable<S> entities);
+
+    /**
+     * The upsertAllAndFlush method passes the provided entities to the {@code upsertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * and calls {@code flush} afterwards.
+     *
+     * @param entities entities to upsert
+     * @param <S>    entity type
+     * @return the number of entities submitted to {@code upsertMultiple}
+     */
+    <S extends T> long upsertAllAndFlush(Iterable<S> entities);
+
+    /**
+     * The streamAll method streams the entities matching the provided {@link Specification} using a
+     * forward-only {@code ScrollableResults}, so that the entities are fetched from the database
+     * {@code fetchSize} rows at a time. To keep the Persistence Context from growing, every window of
+     * {@code fetchSize} streamed entities is detached before the next entity is read, so changes made to
+     * the streamed entities must be saved using {@link #merge(Object)} or {@link #update(Object)}.
+     * <p>
+     * Since the {@link Stream} reads the rows lazily, the method must be called from within a transaction,
+     * and the {@link Stream} must be consumed within that transaction and closed afterward, for example using
+     * a try-with-resources block, so that the underlying {@code ScrollableResults} is released.
+     *
+     * @param specification entity filtering criteria
+     * @param fetchSize     number of rows fetched per database roundtrip
+     * @return the stream of matching entities
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    Stream<T> streamAll(Specification<T> specification, int fetchSize);
+
+    /**
+     * The streamAll method streams the entities returned by the provided JPQL query, like
+     * {@link #streamAll(Specification, int)}. The method must be called from within a transaction,
+     * and the {@link Stream} must be closed after being consumed.
+     *
+     * @param query      JPQL query selecting the entities
+     * @param parameters named query parameters
+     * @param fetchSize  number of rows fetched per database roundtrip
+     * @return the stream of query entities
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    Stream<T> streamAll(String query, Map<String, ?> parameters, int fetchSize);
+
+    /**
+     * The findPageAfter method fetches the next page of entities ordered by identifier, using a keyset
+     * predicate on the last identifier of the previous page instead of an {@code OFFSET}, so that every page
+     * takes the same time, no matter how deep the pagination goes.
+     *
+     * @param lastId identifier of the last entity of the previous page, or {@code null} for the first page
+     * @param limit  maximum number of entities of the page
+     * @return the page entities
+     */
+    List<T> findPageAfter(ID lastId, int limit);
+
+    /**
+     * The findPageAfter method fetches the next page of entities ordered by the given sort attribute and
+     * the identifier, using a keyset predicate on the last entity of the previous page. The identifier acts as
+     * a tie-breaker, so the sort attribute doesn't have to be unique.
+     *
+     * @param sortAttribute name of the basic entity attribute the pages are sorted by
+     * @param lastSortKey   sort attribute value of the last entity of the previous page,
+     *                      or {@code null} for the first page
+     * @param lastId        identifier of the last entity of the previous page, or {@code null} for the first page
+     * @param limit         maximum number of entities of the page
+     * @return the page entities
+     * @throws IllegalArgumentException if the sort attribute is not a basic attribute of the entity
+     */
+    List<T> findPageAfter(String sortAttribute, Object lastSortKey, ID lastId, int limit);
+
     /**
      * Lock the entity with the provided identifier.
      *
@@ -169,4 +495,32 @@ public interface BaseJpaRepository<T, ID> extends Repository<T, ID>, QueryByExam
      * @return entity
      */
     T lockById(ID id, LockModeType lockMode);
+
+    /**
+     * Lock the first entities matching the provided {@link Specification}, in identifier order,
+     * skipping the rows that are already locked by other transactions.
+     * <p>
+     * The entities are locked using {@code SELECT ... FOR UPDATE SKIP LOCKED}, or the equivalent syntax
+     * of the current database dialect, so that multiple workers can consume a queue table concurrently
+     * without blocking each other. It must be called within an existing transaction, which holds the locks
+     * until it ends.
+     *
+     * @param limit         maximum number of entities to lock
+     * @param specification filter of the entities that can be locked
+     * @return the locked entities
+     */
+    List<T> lockNextAvailable(int limit, Specification<T> specification);
+
+    /**
+     * Lock the entities with the provided identifiers using a single query.
+     * <p>
+     * The rows are locked in identifier order, so concurrent transactions locking overlapping sets of entities
+     * acquire their locks in the same order and cannot deadlock. It must be called within an existing transaction,
+     * which holds the locks until it ends.
+     *
+     * @param ids      entity identifiers
+     * @param lockMode entity lock mode
+     * @return the locked entities, in identifier order
+     */
+    List<T> lockAllById(Iterable<ID> ids, LockModeType lockMode);
 }
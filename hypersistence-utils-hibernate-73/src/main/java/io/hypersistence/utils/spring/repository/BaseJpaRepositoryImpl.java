@@ -1,19 +1,66 @@
 package io.hypersistence.utils.spring.repository;
 
+import io.hypersistence.utils.hibernate.id.BulkIdentifierGenerator;
+import io.hypersistence.utils.hibernate.id.IdentifierReservation;
+import jakarta.persistence.AttributeNode;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Graph;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.Subgraph;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.CacheMode;
+import org.hibernate.MultiIdentifierLoadAccess;
+import org.hibernate.ReadOnlyMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.StatelessSession;
+import org.hibernate.Timeouts;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.OracleDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.dialect.SQLServerDialect;
 import org.hibernate.engine.jdbc.spi.JdbcServices;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Vlad Mihalcea
@@ -21,6 +68,14 @@ import java.util.function.Supplier;
 public class BaseJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
     implements BaseJpaRepository<T, ID> {
 
+    private static final int DEFAULT_BATCH_SIZE = 10;
+
+    private static final int UNNEST_CHUNK_SIZE = 10_000;
+
+    private static final int IN_CLAUSE_CHUNK_SIZE = 512;
+
+    private static final long EXACT_COUNT_THRESHOLD = 10_000;
+
     private final EntityManager entityManager;
     private final JpaEntityInformation entityInformation;
 
@@ -45,25 +100,94 @@ public class BaseJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
 
     @Transactional
     public <S extends T> List<S> persistAll(Iterable<S> entities) {
-        List<S> result = new ArrayList<>();
-        for(S entity : entities) {
-            result.add(persist(entity));
-        }
-        return result;
+        return persistEntities(entities);
     }
 
     @Transactional
     public <S extends T> List<S> persistAllAndFlush(Iterable<S> entities) {
         return executeBatch(() -> {
-            List<S> result = new ArrayList<>();
-            for(S entity : entities) {
-                result.add(persist(entity));
-            }
+            List<S> result = persistEntities(entities);
             entityManager.flush();
             return result;
         });
     }
 
+    @Transactional
+    public <S extends T> long persistAllInChunks(Iterator<S> entities) {
+        return executeInChunks(entities, this::persistEntities);
+    }
+
+    @Transactional
+    public <S extends T> long persistAllInChunks(Stream<S> entities) {
+        try (Stream<S> stream = entities) {
+            return persistAllInChunks(stream.iterator());
+        }
+    }
+
+    @Transactional
+    public <S extends T> long insertAll(Iterable<S> entities) {
+        StatelessSession statelessSession = statelessSession();
+        return ChunkUtil.executeInChunks(
+            entities.iterator(),
+            getChunkSize(session()),
+            chunk -> insertChunk(statelessSession, chunk)
+        );
+    }
+
+    @Transactional
+    public <S extends T> long insertAllAndFlush(Iterable<S> entities) {
+        long count = insertAll(entities);
+        ChunkUtil.flushStatelessSession(entityManager);
+        entityManager.flush();
+        return count;
+    }
+
+    @Transactional
+    public <S extends T> long insertAllUnnest(Iterable<S> entities) {
+        SharedSessionContractImplementor session = session().unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = entityPersister(session);
+        if (!supportsPostgreSQLBulkInsert(session, persister)) {
+            return insertAll(entities);
+        }
+        PostgreSQLUnnestInserter inserter = PostgreSQLUnnestInserter.of(session, persister);
+        List<S> chunk = new ArrayList<>();
+        Iterator<S> iterator = entities.iterator();
+        long[] count = {0};
+        try {
+            return ChunkUtil.executeInChunks(iterator, chunk, UNNEST_CHUNK_SIZE, currentChunk -> {
+                int chunkCount = unnestChunk(inserter, currentChunk);
+                count[0] += chunkCount;
+                return chunkCount;
+            });
+        } catch (PostgreSQLRowEncoder.UnsupportedBindingException e) {
+            // the current chunk was not sent, so it's inserted along with the remaining entities
+            return count[0] + insertAll(remaining(chunk, iterator));
+        }
+    }
+
+    @Transactional
+    public <S extends T> long copyAll(Stream<S> entities) {
+        try (Stream<S> stream = entities) {
+            SharedSessionContractImplementor session = session().unwrap(SharedSessionContractImplementor.class);
+            EntityPersister persister = entityPersister(session);
+            if (!supportsPostgreSQLBulkInsert(session, persister)) {
+                return insertAll(stream::iterator);
+            }
+            List<S> chunk = new ArrayList<>();
+            Iterator<S> iterator = stream.iterator();
+            try (PostgreSQLCopyWriter writer = PostgreSQLCopyWriter.open(session, persister)) {
+                try {
+                    ChunkUtil.executeInChunks(iterator, chunk, getChunkSize(session()), currentChunk -> copyChunk(writer, currentChunk));
+                } catch (PostgreSQLRowEncoder.UnsupportedBindingException e) {
+                    // the current chunk was not written, so it's inserted along with the remaining entities
+                    long count = writer.finish();
+                    return count + insertAll(remaining(chunk, iterator));
+                }
+                return writer.finish();
+            }
+        }
+    }
+
     @Transactional
     public <S extends T> S merge(S entity) {
         return entityManager.merge(entity);
@@ -78,28 +202,36 @@ public class BaseJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
 
     @Transactional
     public <S extends T> List<S> mergeAll(Iterable<S> entities) {
-        List<S> result = new ArrayList<>();
-        for(S entity : entities) {
-            result.add(merge(entity));
-        }
-        return result;
+        return mergeEntities(entities);
     }
 
     @Transactional
     public <S extends T> List<S> mergeAllAndFlush(Iterable<S> entities) {
         return executeBatch(() -> {
-            List<S> result = new ArrayList<>();
-            for(S entity : entities) {
-                result.add(merge(entity));
-            }
+            List<S> result = mergeEntities(entities);
             entityManager.flush();
             return result;
         });
     }
 
+    @Transactional
+    public <S extends T> long mergeAllInChunks(Iterator<S> entities) {
+        return executeInChunks(entities, this::mergeEntities);
+    }
+
+    @Transactional
+    public <S extends T> long mergeAllInChunks(Stream<S> entities) {
+        try (Stream<S> stream = entities) {
+            return mergeAllInChunks(stream.iterator());
+        }
+    }
+
     @Transactional
     public <S extends T> S update(S entity) {
-        statelessSession().update(entity);
+        StatelessSession statelessSession = statelessSession();
+        statelessSession.update(entity);
+        // a single update is executed right away, like it would without JDBC batching
+        StatelessSessionUtil.executeBatch(statelessSession);
         return entity;
     }
 
@@ -114,21 +246,304 @@ public class BaseJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
     public <S extends T> List<S> updateAll(Iterable<S> entities) {
         List<S> result = new ArrayList<>();
         for(S entity : entities) {
-            result.add(update(entity));
+            result.add(entity);
+        }
+        StatelessSession statelessSession = statelessSession();
+        int chunkSize = getChunkSize(session());
+        for (int i = 0; i < result.size(); i += chunkSize) {
+            statelessSession.updateMultiple(result.subList(i, Math.min(i + chunkSize, result.size())));
         }
         return result;
     }
 
     @Transactional
     public <S extends T> List<S> updateAllAndFlush(Iterable<S> entities) {
-        return executeBatch(() -> {
-            List<S> result = new ArrayList<>();
-            for(S entity : entities) {
-                result.add(update(entity));
-            }
-            entityManager.flush();
+        List<S> result = updateAll(entities);
+        ChunkUtil.flushStatelessSession(entityManager);
+        entityManager.flush();
+        return result;
+    }
+
+    @Transactional
+    public <S extends T> long upsertAll(Iterable<S> entities) {
+        StatelessSession statelessSession = statelessSession();
+        return ChunkUtil.executeInChunks(
+            entities.iterator(),
+            getChunkSize(session()),
+            chunk -> ChunkUtil.upsertMultiple(statelessSession, chunk)
+        );
+    }
+
+    @Transactional
+    public <S extends T> long upsertAllAndFlush(Iterable<S> entities) {
+        long count = upsertAll(entities);
+        ChunkUtil.flushStatelessSession(entityManager);
+        entityManager.flush();
+        return count;
+    }
+
+    /**
+     * Fetch the entities matching the given identifiers using the Hibernate multi-load mechanism, so that
+     * the entities already found in the Persistence Context or in the second-level cache are not fetched again.
+     * The missing entities are fetched in batches of {@link #getMultiLoadBatchSize()} entities, which Hibernate
+     * binds as a single array parameter on databases like PostgreSQL. On the databases using an {@code IN} list,
+     * the identifiers are multi-loaded in chunks padded to the next power of two, so that only a few distinct
+     * SQL statements are generated.
+     */
+    @Override
+    public List<T> findAllById(Iterable<ID> ids) {
+        return multiLoadAll(distinctIds(ids), chunk -> multiLoad(chunk, false));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<T> findById(ID id, ReadMode readMode) {
+        switch (readMode) {
+            case READ_ONLY:
+                return Optional.ofNullable((T) session().find(entityInformation.getJavaType(), id, ReadOnlyMode.READ_ONLY));
+            case STATELESS:
+                return Optional.ofNullable((T) statelessSession().get(entityInformation.getJavaType(), id));
+            default:
+                return findById(id);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<T> findAllById(Iterable<ID> ids, ReadMode readMode) {
+        if (readMode == ReadMode.READ_WRITE) {
+            return findAllById(ids);
+        }
+        return multiLoadAll(
+            distinctIds(ids),
+            chunk -> readMode == ReadMode.STATELESS ?
+                statelessSession().getMultiple(entityInformation.getJavaType(), chunk) :
+                multiLoadAccess().withReadOnly(true).multiLoad(chunk)
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<T> findAllByIdWithGraph(Iterable<ID> ids, EntityGraph<T> entityGraph) {
+        List<ID> idList = distinctIds(ids);
+        List<T> result = new ArrayList<>(idList.size());
+        if (idList.isEmpty()) {
             return result;
-        });
+        }
+        Class<T> entityClass = (Class<T>) entityInformation.getJavaType();
+        EntityGraph<T> rootGraph = entityManager.createEntityGraph(entityClass);
+        List<EntityGraph<T>> collectionGraphs = new ArrayList<>();
+        splitAttributeNodes(
+            rootGraph,
+            entityManager.getMetamodel().managedType(entityClass),
+            entityGraph.getAttributeNodes(),
+            Function.identity(),
+            collectionGraphs
+        );
+        for (int i = 0; i < idList.size(); i += IN_CLAUSE_CHUNK_SIZE) {
+            List<ID> chunk = paddedChunk(idList, i, IN_CLAUSE_CHUNK_SIZE);
+            result.addAll(loadChunkWithGraph(chunk, rootGraph));
+            for (EntityGraph<T> collectionGraph : collectionGraphs) {
+                loadChunkWithGraph(chunk, collectionGraph);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<T> findAllByIdWithGraph(Iterable<ID> ids, String entityGraphName) {
+        return findAllByIdWithGraph(ids, (EntityGraph<T>) entityManager.getEntityGraph(entityGraphName));
+    }
+
+    @Override
+    public long estimatedCount() {
+        return estimatedCount(EXACT_COUNT_THRESHOLD);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long estimatedCount(long exactCountThreshold) {
+        SharedSessionContractImplementor session = session().unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = entityPersister(session);
+        String sql = estimatedCountQuery(session.getJdbcServices().getDialect());
+        if (sql != null && persister.getTableNames().length == 1 && persister.getDiscriminatorMapping() == null) {
+            List<?> result = entityManager.createNativeQuery(sql)
+                .setParameter(1, persister.getTableName())
+                .getResultList();
+            if (!result.isEmpty() && result.get(0) != null) {
+                long estimatedCount = ((Number) result.get(0)).longValue();
+                if (estimatedCount >= exactCountThreshold) {
+                    return estimatedCount;
+                }
+            }
+        }
+        return count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<T> findPage(Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ?
+            pageable.getSort() :
+            Sort.by(entityInformation.getIdAttribute().getName());
+        if (pageable.isUnpaged()) {
+            // like findAll(Pageable), all entities are returned, so their number is the total
+            String jpql = QueryUtils.applySorting(
+                String.format("select e from %s e", entityInformation.getEntityName()),
+                sort,
+                "e"
+            );
+            return new PageImpl<>(entityManager.createQuery(jpql, entityInformation.getJavaType()).getResultList());
+        }
+        String jpql = QueryUtils.applySorting(
+            String.format("select e, count(*) over() from %s e", entityInformation.getEntityName()),
+            sort,
+            "e"
+        );
+        List<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize())
+            .getResultList();
+        if (rows.isEmpty()) {
+            // a page past the last entity does not return the total, so it's counted separately
+            return new PageImpl<>(new ArrayList<>(), pageable, pageable.getOffset() > 0 ? count() : 0);
+        }
+        List<T> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            content.add((T) row[0]);
+        }
+        return new PageImpl<>(content, pageable, ((Number) rows.get(0)[1]).longValue());
+    }
+
+    @Override
+    public List<T> findAllByIdOrdered(Iterable<ID> ids) {
+        List<ID> idList = new ArrayList<>();
+        for (ID id : ids) {
+            idList.add(id);
+        }
+        if (idList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return multiLoad(idList, true);
+    }
+
+    @Override
+    @Transactional
+    public void deleteAllInBatch(Iterable<T> entities) {
+        if (!hasSingleColumnId(entityPersister(session().unwrap(SharedSessionContractImplementor.class)))) {
+            super.deleteAllInBatch(entities);
+            return;
+        }
+        List<ID> ids = new ArrayList<>();
+        for (T entity : entities) {
+            ids.add((ID) entityInformation.getId(entity));
+        }
+        deleteAllByIdInBatch(ids);
+    }
+
+    @Override
+    @Transactional
+    public void deleteAllByIdInBatch(Iterable<ID> ids) {
+        deleteAllByIdInBatch(ids, IN_CLAUSE_CHUNK_SIZE);
+    }
+
+    @Transactional
+    public void deleteAllByIdInBatch(Iterable<ID> ids, int chunkSize) {
+        checkChunkSize(chunkSize);
+        List<ID> idList = distinctIds(ids);
+        Session session = session();
+        if (!hasSingleColumnId(entityPersister(session.unwrap(SharedSessionContractImplementor.class)))) {
+            for (int i = 0; i < idList.size(); i += chunkSize) {
+                super.deleteAllByIdInBatch(idList.subList(i, Math.min(i + chunkSize, idList.size())));
+            }
+            return;
+        }
+        for (int i = 0; i < idList.size(); i += chunkSize) {
+            deleteChunk(session, idList, i, chunkSize);
+        }
+    }
+
+    @Transactional
+    public long deleteAllByIdInChunks(Iterable<ID> ids, int chunkSize) {
+        checkChunkSize(chunkSize);
+        List<ID> idList = distinctIds(ids);
+        Session session = session();
+        if (!hasSingleColumnId(entityPersister(session.unwrap(SharedSessionContractImplementor.class)))) {
+            throw new UnsupportedOperationException(
+                "The deleteAllByIdInChunks method does not support composite identifiers!"
+            );
+        }
+        long count = 0;
+        for (int i = 0; i < idList.size(); i += chunkSize) {
+            count += deleteChunk(session, idList, i, chunkSize);
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<T> streamAll(Specification<T> specification, int fetchSize) {
+        return stream(getQuery(specification, Sort.unsorted()), fetchSize);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<T> streamAll(String query, Map<String, ?> parameters, int fetchSize) {
+        TypedQuery<T> typedQuery = entityManager.createQuery(query, entityInformation.getJavaType());
+        parameters.forEach(typedQuery::setParameter);
+        return stream(typedQuery, fetchSize);
+    }
+
+    @Override
+    public List<T> findPageAfter(ID lastId, int limit) {
+        String idAttribute = entityInformation.getIdAttribute().getName();
+        String jpql = String.format(
+            "select e from %s e %s order by e.%s",
+            entityInformation.getEntityName(),
+            lastId != null ? String.format("where e.%s > :lastId", idAttribute) : "",
+            idAttribute
+        );
+        TypedQuery<T> query = entityManager.createQuery(jpql, entityInformation.getJavaType())
+            .setMaxResults(limit);
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public List<T> findPageAfter(String sortAttribute, Object lastSortKey, ID lastId, int limit) {
+        // the attribute name is added to the query, so it must match a basic attribute of the entity
+        SingularAttribute<? super T, ?> attribute = entityManager.getMetamodel()
+            .entity(entityInformation.getJavaType())
+            .getSingularAttribute(sortAttribute);
+        if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException(
+                String.format("The sort attribute [%s] must be a basic attribute!", sortAttribute)
+            );
+        }
+        String sortAttributeName = attribute.getName();
+        String idAttribute = entityInformation.getIdAttribute().getName();
+        boolean firstPage = lastSortKey == null || lastId == null;
+        String jpql = String.format(
+            "select e from %s e %s order by e.%s, e.%s",
+            entityInformation.getEntityName(),
+            firstPage ? "" : String.format(
+                "where e.%1$s > :lastSortKey or (e.%1$s = :lastSortKey and e.%2$s > :lastId)",
+                sortAttributeName,
+                idAttribute
+            ),
+            sortAttributeName,
+            idAttribute
+        );
+        TypedQuery<T> query = entityManager.createQuery(jpql, entityInformation.getJavaType())
+            .setMaxResults(limit);
+        if (!firstPage) {
+            query.setParameter("lastSortKey", lastSortKey);
+            query.setParameter("lastId", lastId);
+        }
+        return query.getResultList();
     }
 
     @Override
@@ -136,6 +551,36 @@ public class BaseJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
         return (T) entityManager.find(entityInformation.getJavaType(), id, lockMode);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<T> lockNextAvailable(int limit, Specification<T> specification) {
+        return getQuery(specification, Sort.by(entityInformation.getIdAttribute().getName()))
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .setHint(SpecHints.HINT_SPEC_LOCK_TIMEOUT, Timeouts.SKIP_LOCKED_MILLI)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<T> lockAllById(Iterable<ID> ids, LockModeType lockMode) {
+        List<ID> idList = distinctIds(ids);
+        if (idList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String idAttribute = entityInformation.getIdAttribute().getName();
+        String jpql = String.format(
+            "select e from %s e where e.%s in :ids order by e.%s",
+            entityInformation.getEntityName(),
+            idAttribute,
+            idAttribute
+        );
+        return entityManager.createQuery(jpql, (Class<T>) entityInformation.getJavaType())
+            .setParameter("ids", idList)
+            .setLockMode(lockMode)
+            .getResultList();
+    }
+
     protected Integer getBatchSize(Session session) {
         SessionFactoryImplementor sessionFactory = session.getSessionFactory().unwrap(SessionFactoryImplementor.class);
         final JdbcServices jdbcServices = sessionFactory.getServiceRegistry().getService(JdbcServices.class);
@@ -151,7 +596,7 @@ public class BaseJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
         Integer originalSessionBatchSize = session.getJdbcBatchSize();
         try {
             if (jdbcBatchSize == null) {
-                session.setJdbcBatchSize(10);
+                session.setJdbcBatchSize(DEFAULT_BATCH_SIZE);
             }
             return callback.get();
         } finally {
@@ -159,6 +604,356 @@ public class BaseJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID>
         }
     }
 
+    /**
+     * Get the maximum number of entities fetched by a single multi-load query.
+     */
+    protected int getMultiLoadBatchSize() {
+        return IN_CLAUSE_CHUNK_SIZE;
+    }
+
+    /**
+     * Get the number of entities processed between two flushes, which matches the JDBC batch size.
+     */
+    protected int getChunkSize(Session session) {
+        Integer sessionBatchSize = session.getJdbcBatchSize();
+        if (sessionBatchSize != null && sessionBatchSize > 0) {
+            return sessionBatchSize;
+        }
+        Integer jdbcBatchSize = getBatchSize(session);
+        return jdbcBatchSize != null && jdbcBatchSize > 0 ? jdbcBatchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Pass the entities to the given callback in chunks of the JDBC batch size,
+     * flushing and clearing the Persistence Context after every chunk.
+     */
+    protected <S extends T> long executeInChunks(Iterator<S> entities, Consumer<List<S>> callback) {
+        return executeBatch(() -> ChunkUtil.executeInChunks(entities, getChunkSize(session()), chunk -> {
+            callback.accept(chunk);
+            entityManager.flush();
+            entityManager.clear();
+            return chunk.size();
+        }));
+    }
+
+    private <S extends T> List<S> persistEntities(Iterable<S> entities) {
+        List<S> entityList = new ArrayList<>();
+        for(S entity : entities) {
+            entityList.add(entity);
+        }
+        try (IdentifierReservation reservation = reserveIdentifiers(entityList.size())) {
+            for(S entity : entityList) {
+                persist(entity);
+            }
+        }
+        return entityList;
+    }
+
+    /**
+     * Stream the query results using a forward-only {@code ScrollableResults}, detaching every window of
+     * {@code fetchSize} streamed entities before the next entity is read.
+     */
+    private Stream<T> stream(TypedQuery<T> typedQuery, int fetchSize) {
+        ScrollableResults<T> scrollableResults = typedQuery
+            .unwrap(Query.class)
+            .setFetchSize(fetchSize)
+            .scroll(ScrollMode.FORWARD_ONLY);
+        Session session = session();
+        Iterator<T> iterator = new Iterator<>() {
+            private final List<T> window = new ArrayList<>(fetchSize);
+
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    if (window.size() >= fetchSize) {
+                        window.forEach(session::detach);
+                        window.clear();
+                    }
+                    hasNext = scrollableResults.next();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                T entity = scrollableResults.get();
+                window.add(entity);
+                return entity;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(scrollableResults::close);
+    }
+
+    /**
+     * Merge the given entities, after loading all the existing ones that are not yet managed
+     * using a multi-load, so that the merge operations don't have to fetch them one by one.
+     */
+    private <S extends T> List<S> mergeEntities(Iterable<S> entities) {
+        List<S> entityList = new ArrayList<>();
+        List<ID> ids = new ArrayList<>();
+        for(S entity : entities) {
+            entityList.add(entity);
+            ID id = (ID) entityInformation.getId(entity);
+            if (id != null && !entityManager.contains(entity)) {
+                ids.add(id);
+            }
+        }
+        List<ID> distinctIds = distinctIds(ids);
+        if (distinctIds.size() > 1) {
+            multiLoad(distinctIds, false);
+        }
+        List<S> result = new ArrayList<>(entityList.size());
+        for(S entity : entityList) {
+            result.add(merge(entity));
+        }
+        return result;
+    }
+
+    private <S extends T> int insertChunk(StatelessSession statelessSession, List<S> chunk) {
+        try (IdentifierReservation reservation = reserveIdentifiers(chunk.size())) {
+            return ChunkUtil.insertMultiple(statelessSession, chunk);
+        }
+    }
+
+    private <S extends T> int copyChunk(PostgreSQLCopyWriter writer, List<S> chunk) {
+        try (IdentifierReservation reservation = reserveIdentifiers(chunk.size())) {
+            writer.write(chunk);
+        }
+        return chunk.size();
+    }
+
+    private <S extends T> int unnestChunk(PostgreSQLUnnestInserter inserter, List<S> chunk) {
+        try (IdentifierReservation reservation = reserveIdentifiers(chunk.size())) {
+            return inserter.insert(chunk);
+        }
+    }
+
+    /**
+     * Resolve the entities that were not sent by a PostgreSQL bulk command, so that they can be inserted
+     * using {@link #insertAll(Iterable)} when a column value cannot be encoded.
+     */
+    private static <S> Iterable<S> remaining(List<S> chunk, Iterator<S> iterator) {
+        return () -> Stream.concat(
+            chunk.stream(),
+            StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+        ).iterator();
+    }
+
+    /**
+     * Check whether the entities can be inserted using the PostgreSQL bulk commands. The dialect is checked first,
+     * so that the classes referencing the PostgreSQL JDBC Driver are only loaded when using PostgreSQL.
+     */
+    private boolean supportsPostgreSQLBulkInsert(SharedSessionContractImplementor session, EntityPersister persister) {
+        return session.getJdbcServices().getDialect() instanceof PostgreSQLDialect &&
+            PostgreSQLRowEncoder.supports(persister);
+    }
+
+    private EntityPersister entityPersister(SharedSessionContractImplementor session) {
+        return entityPersister(session.getFactory());
+    }
+
+    private EntityPersister entityPersister(SessionFactoryImplementor sessionFactory) {
+        return sessionFactory
+            .getMappingMetamodel()
+            .getEntityDescriptor(entityInformation.getJavaType());
+    }
+
+    /**
+     * Delete the entities matching the given chunk of identifiers using a bulk {@code DELETE} query,
+     * so that Hibernate also handles the join tables, the soft deletes, the restrictions, and the filters
+     * of the entity mapping. The chunk size is padded to the next power of two.
+     */
+    private int deleteChunk(Session session, List<ID> ids, int from, int chunkSize) {
+        String jpql = String.format(
+            "delete from %s e where e.%s in :ids",
+            entityInformation.getEntityName(),
+            entityInformation.getIdAttribute().getName()
+        );
+        return session.createMutationQuery(jpql)
+            .setParameter("ids", paddedChunk(ids, from, chunkSize))
+            .executeUpdate();
+    }
+
+    /**
+     * Load the entities matching the given chunk of identifiers, fetching the attributes of the given graph.
+     */
+    private List<T> loadChunkWithGraph(List<ID> ids, EntityGraph<T> entityGraph) {
+        String jpql = String.format(
+            "select e from %s e where e.%s in :ids",
+            entityInformation.getEntityName(),
+            entityInformation.getIdAttribute().getName()
+        );
+        return entityManager.createQuery(jpql, (Class<T>) entityInformation.getJavaType())
+            .setParameter("ids", ids)
+            .setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, entityGraph)
+            .getResultList();
+    }
+
+    /**
+     * Copy the given attribute nodes to the provided graph, except for the collection attributes, which are
+     * copied, along with the path leading to them, to a new graph added to the given list of collection graphs.
+     */
+    private void splitAttributeNodes(
+            Graph<?> graph,
+            ManagedType<?> managedType,
+            List<? extends AttributeNode<?>> attributeNodes,
+            Function<Graph<?>, Graph<?>> path,
+            List<EntityGraph<T>> collectionGraphs) {
+        for (AttributeNode<?> attributeNode : attributeNodes) {
+            String attributeName = attributeNode.getAttributeName();
+            Graph<?> targetGraph = graph;
+            if (managedType.getAttribute(attributeName).isCollection()) {
+                EntityGraph<T> collectionGraph = entityManager.createEntityGraph(
+                    (Class<T>) entityInformation.getJavaType()
+                );
+                collectionGraphs.add(collectionGraph);
+                targetGraph = path.apply(collectionGraph);
+            }
+            Map<Class, Subgraph> subgraphs = attributeNode.getSubgraphs();
+            if (subgraphs.isEmpty()) {
+                targetGraph.addAttributeNode(attributeName);
+                continue;
+            }
+            for (Subgraph<?> subgraph : subgraphs.values()) {
+                Class<?> classType = subgraph.getClassType();
+                splitAttributeNodes(
+                    targetGraph.addSubgraph(attributeName, classType),
+                    entityManager.getMetamodel().managedType(classType),
+                    subgraph.getAttributeNodes(),
+                    path.andThen(parentGraph -> parentGraph.addSubgraph(attributeName, classType)),
+                    collectionGraphs
+                );
+            }
+        }
+    }
+
+    /**
+     * Load the entities matching the given distinct identifiers using the provided multi-load function.
+     * When the database binds the identifiers as an {@code IN} list, they are loaded in chunks padded
+     * to the next power of two, and the entities loaded by the padding identifiers are skipped.
+     */
+    private List<T> multiLoadAll(List<ID> ids, Function<List<ID>, List<? extends T>> multiLoader) {
+        List<T> result = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Dialect dialect = session().unwrap(SharedSessionContractImplementor.class).getJdbcServices().getDialect();
+        if (dialect.useArrayForMultiValuedParameters()) {
+            result.addAll(multiLoader.apply(ids));
+        } else {
+            Set<Object> loadedIds = new HashSet<>();
+            for (int i = 0; i < ids.size(); i += IN_CLAUSE_CHUNK_SIZE) {
+                for (T entity : multiLoader.apply(paddedChunk(ids, i, IN_CLAUSE_CHUNK_SIZE))) {
+                    if (entity != null && loadedIds.add(entityInformation.getId(entity))) {
+                        result.add(entity);
+                    }
+                }
+            }
+        }
+        // the unordered multi-load returns a null element for every identifier that has no matching entity
+        result.removeIf(Objects::isNull);
+        return result;
+    }
+
+    private List<T> multiLoad(List<ID> ids, boolean ordered) {
+        return multiLoadAccess()
+            .enableOrderedReturn(ordered)
+            .multiLoad(ids);
+    }
+
+    /**
+     * Get the SQL query reading the estimated number of rows of the table bound to the first parameter,
+     * or {@code null} if the database does not provide one.
+     */
+    private String estimatedCountQuery(Dialect dialect) {
+        if (dialect instanceof PostgreSQLDialect) {
+            // reltuples is -1 if the table was never analyzed
+            return "select cast(reltuples as bigint) from pg_class where oid = cast(? as regclass)";
+        }
+        if (dialect instanceof H2Dialect) {
+            return "select row_count_estimate from information_schema.tables " +
+                "where table_schema = schema() and lower(table_name) = lower(?)";
+        }
+        if (dialect instanceof MySQLDialect) {
+            return "select table_rows from information_schema.tables " +
+                "where table_schema = database() and lower(table_name) = lower(?)";
+        }
+        if (dialect instanceof OracleDialect) {
+            return "select num_rows from user_tables where table_name = upper(?)";
+        }
+        if (dialect instanceof SQLServerDialect) {
+            return "select sum(row_count) from sys.dm_db_partition_stats " +
+                "where object_id = object_id(?) and index_id in (0, 1)";
+        }
+        return null;
+    }
+
+    private MultiIdentifierLoadAccess<T> multiLoadAccess() {
+        return session()
+            .byMultipleIds(entityInformation.getJavaType())
+            .withBatchSize(getMultiLoadBatchSize())
+            .enableSessionCheck(true)
+            .with(CacheMode.NORMAL);
+    }
+
+    private void checkChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(
+                String.format("The chunk size must be positive, but it was [%d]!", chunkSize)
+            );
+        }
+    }
+
+    private List<ID> distinctIds(Iterable<ID> ids) {
+        Set<ID> idSet = new LinkedHashSet<>();
+        for (ID id : ids) {
+            if (id != null) {
+                idSet.add(id);
+            }
+        }
+        return new ArrayList<>(idSet);
+    }
+
+    private boolean hasSingleColumnId(EntityPersister persister) {
+        return !entityInformation.hasCompositeId() && persister.getIdentifierMapping().getJdbcTypeCount() == 1;
+    }
+
+    /**
+     * Get the chunk of identifiers starting at the given index, padded with its last identifier to the next
+     * power of two, so that only a few chunk sizes get a query plan.
+     */
+    private List<ID> paddedChunk(List<ID> ids, int from, int chunkSize) {
+        List<ID> chunk = new ArrayList<>(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        int paddedSize = Integer.highestOneBit(chunk.size());
+        if (paddedSize < chunk.size()) {
+            paddedSize = Math.min(paddedSize << 1, chunkSize);
+        }
+        ID lastId = chunk.get(chunk.size() - 1);
+        while (chunk.size() < paddedSize) {
+            chunk.add(lastId);
+        }
+        return chunk;
+    }
+
+    private IdentifierReservation reserveIdentifiers(int count) {
+        if (count < 2) {
+            return null;
+        }
+        SharedSessionContractImplementor session = session().unwrap(SharedSessionContractImplementor.class);
+        Generator generator = entityPersister(session).getGenerator();
+        if (generator instanceof BulkIdentifierGenerator) {
+            return IdentifierReservation.reserve((BulkIdentifierGenerator) generator, session, count);
+        }
+        return null;
+    }
+
     protected Session session() {
         return entityManager.unwrap(Session.class);
     }
@@ -0,0 +1,77 @@
+package io.hypersistence.utils.spring.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.StatelessSession;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * @author Vlad Mihalcea
+ */
+final class ChunkUtil {
+
+    private ChunkUtil() {
+        throw new UnsupportedOperationException("ChunkUtil is not instantiable!");
+    }
+
+    /**
+     * Pass the entities to the given callback in chunks of the given size.
+     *
+     * @param entities  entities to process
+     * @param chunkSize maximum number of entities passed to the callback
+     * @param callback  processes a chunk, returning the number of processed entities
+     * @return the number of processed entities
+     */
+    static <S> long executeInChunks(Iterator<S> entities, int chunkSize, ToIntFunction<List<S>> callback) {
+        return executeInChunks(entities, new ArrayList<>(chunkSize), chunkSize, callback);
+    }
+
+    /**
+     * Pass the entities to the given callback in chunks of the given size, collected by the provided list.
+     * The list is cleared only after the callback succeeds, so, if the callback throws an exception,
+     * the list contains the entities of the failed chunk.
+     *
+     * @param entities  entities to process
+     * @param chunk     list collecting the entities of the current chunk
+     * @param chunkSize maximum number of entities passed to the callback
+     * @param callback  processes a chunk, returning the number of processed entities
+     * @return the number of processed entities
+     */
+    static <S> long executeInChunks(Iterator<S> entities, List<S> chunk, int chunkSize, ToIntFunction<List<S>> callback) {
+        long count = 0;
+        while (entities.hasNext()) {
+            chunk.add(entities.next());
+            if (chunk.size() == chunkSize) {
+                count += callback.applyAsInt(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            count += callback.applyAsInt(chunk);
+            chunk.clear();
+        }
+        return count;
+    }
+
+    static <S> int insertMultiple(StatelessSession statelessSession, List<S> chunk) {
+        statelessSession.insertMultiple(chunk);
+        return chunk.size();
+    }
+
+    static <S> int upsertMultiple(StatelessSession statelessSession, List<S> chunk) {
+        statelessSession.upsertMultiple(chunk);
+        return chunk.size();
+    }
+
+    /**
+     * Execute the pending JDBC batch of the {@code StatelessSession} bound to the current transaction.
+     *
+     * @param entityManager entity manager
+     */
+    static void flushStatelessSession(EntityManager entityManager) {
+        StatelessSessionUtil.executeBatch(StatelessSessionUtil.statelessSession(entityManager));
+    }
+}
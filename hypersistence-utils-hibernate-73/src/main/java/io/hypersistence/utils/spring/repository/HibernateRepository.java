@@ -1,6 +1,8 @@
 package io.hypersistence.utils.spring.repository;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * The {@code HibernateRepository} fixes the problems that the default Spring Data {@code JpaRepository}
@@ -99,6 +101,56 @@ public interface HibernateRepository<T> {
      */
     <S extends T> List<S> persistAllAndFlush(Iterable<S> entities);
 
+    /**
+     * The persistAllInChunks method passes the provided entities to the {@code persist} method of the
+     * underlying JPA {@code EntityManager}, and it flushes and clears the Persistence Context every time
+     * the number of persisted entities reaches the JDBC batch size. This way, the entities are
+     * consumed lazily, and the Persistence Context does not grow with the number of entities.
+     * <p>
+     * Note that clearing the Persistence Context detaches all the managed entities, including the ones
+     * that were loaded prior to calling this method.
+     *
+     * @param entities entities to persist
+     * @param <S>    entity type
+     * @return the number of persisted entities
+     */
+    <S extends T> long persistAllInChunks(Iterator<S> entities);
+
+    /**
+     * The persistAllInChunks method passes the entities of the provided {@link Stream} to the {@code persist}
+     * method of the underlying JPA {@code EntityManager}, flushing and clearing the Persistence Context every time
+     * the number of persisted entities reaches the JDBC batch size. The {@link Stream} is closed afterward.
+     *
+     * @param entities entities to persist
+     * @param <S>    entity type
+     * @return the number of persisted entities
+     */
+    <S extends T> long persistAllInChunks(Stream<S> entities);
+
+    /**
+     * The insertAll method passes the provided entities to the {@code insertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size.
+     * Unlike {@link #persistAll(Iterable)}, the entities are not attached to the Persistence Context,
+     * so there's no snapshot to keep and no dirty checking to run at flush time, which makes it
+     * suitable for append-only tables.
+     *
+     * @param entities entities to insert
+     * @param <S>    entity type
+     * @return the number of inserted entities
+     */
+    <S extends T> long insertAll(Iterable<S> entities);
+
+    /**
+     * The insertAllAndFlush method passes the provided entities to the {@code insertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * and calls {@code flush} afterwards.
+     *
+     * @param entities entities to insert
+     * @param <S>    entity type
+     * @return the number of inserted entities
+     */
+    <S extends T> long insertAllAndFlush(Iterable<S> entities);
+
     /**
      * The persist method allows you to pass the provided entity to the {@code merge} method of the
      * underlying JPA {@code EntityManager}.
@@ -139,6 +191,32 @@ public interface HibernateRepository<T> {
      */
     <S extends T> List<S> mergeAllAndFlush(Iterable<S> entities);
 
+    /**
+     * The mergeAllInChunks method passes the provided entities to the {@code merge} method of the
+     * underlying JPA {@code EntityManager}, and it flushes and clears the Persistence Context every time
+     * the number of merged entities reaches the JDBC batch size. This way, the entities are
+     * consumed lazily, and the Persistence Context does not grow with the number of entities.
+     * <p>
+     * Note that clearing the Persistence Context detaches all the managed entities, including the ones
+     * that were loaded prior to calling this method.
+     *
+     * @param entities entities to merge
+     * @param <S>    entity type
+     * @return the number of merged entities
+     */
+    <S extends T> long mergeAllInChunks(Iterator<S> entities);
+
+    /**
+     * The mergeAllInChunks method passes the entities of the provided {@link Stream} to the {@code merge}
+     * method of the underlying JPA {@code EntityManager}, flushing and clearing the Persistence Context every time
+     * the number of merged entities reaches the JDBC batch size. The {@link Stream} is closed afterward.
+     *
+     * @param entities entities to merge
+     * @param <S>    entity type
+     * @return the number of merged entities
+     */
+    <S extends T> long mergeAllInChunks(Stream<S> entities);
+
     /**
      * The update method allows you to pass the provided entity to the {@code update} method of the
      * underlying JPA {@code EntityManager}.
@@ -160,8 +238,9 @@ public interface HibernateRepository<T> {
     <S extends T> S updateAndFlush(S entity);
 
     /**
-     * The updateAll method allows you to pass the provided entities to the {@code update} method of the
-     * underlying JPA {@code EntityManager}.
+     * The updateAll method allows you to pass the provided entities to the {@code updateMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * so that the UPDATE statements are sent in batches.
      *
      * @param entities entities to update
      * @param <S>    entity type
@@ -170,12 +249,42 @@ public interface HibernateRepository<T> {
     <S extends T> List<S> updateAll(Iterable<S> entities);
 
     /**
-     * The updateAllAndFlush method allows you to pass the provided entities to the {@code update} method of the
-     * underlying JPA {@code EntityManager} and call {@code flush} afterwards.
+     * The updateAllAndFlush method allows you to pass the provided entities to the {@code updateMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * and call {@code flush} afterwards.
      *
      * @param entities entities to update
      * @param <S>    entity type
      * @return entities
      */
     <S extends T> List<S> updateAllAndFlush(Iterable<S> entities);
+
+    /**
+     * The upsertAll method passes the provided entities to the {@code upsertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size.
+     * Each entity is either inserted or updated by a single statement, generated for the current dialect
+     * from the entity mapping, like {@code INSERT ... ON CONFLICT DO UPDATE} on PostgreSQL,
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL, or {@code MERGE} on H2, Oracle, or SQL Server,
+     * so there's no need to load the entities into the Persistence Context first.
+     * <p>
+     * The entities are passed chunk by chunk while iterating, so only the current chunk is held in memory.
+     * Since the upsert statements don't report whether a row was inserted or updated, the returned value
+     * is the number of submitted entities, not the number of affected rows.
+     *
+     * @param entities entities to upsert
+     * @param <S>    entity type
+     * @return the number of entities submitted to {@code upsertMultiple}
+     */
+    <S extends T> long upsertAll(Iterable<S> entities);
+
+    /**
+     * The upsertAllAndFlush method passes the provided entities to the {@code upsertMultiple} method of the
+     * {@code StatelessSession} bound to the current transaction, in chunks of the JDBC batch size,
+     * and calls {@code flush} afterwards.
+     *
+     * @param entities entities to upsert
+     * @param <S>    entity type
+     * @return the number of entities submitted to {@code upsertMultiple}
+     */
+    <S extends T> long upsertAllAndFlush(Iterable<S> entities);
 }
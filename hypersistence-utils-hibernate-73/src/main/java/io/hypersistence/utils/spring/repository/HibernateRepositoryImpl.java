@@ -8,14 +8,19 @@ import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * @author Vlad Mihalcea
  */
 public class HibernateRepositoryImpl<T> implements HibernateRepository<T> {
 
+    private static final int DEFAULT_BATCH_SIZE = 10;
+
     private final EntityManager entityManager;
 
     public HibernateRepositoryImpl(EntityManager entityManager) {
@@ -77,6 +82,40 @@ public class HibernateRepositoryImpl<T> implements HibernateRepository<T> {
         });
     }
 
+    @Override
+    public <S extends T> long persistAllInChunks(Iterator<S> entities) {
+        return executeInChunks(entities, chunk -> {
+            for(S entity : chunk) {
+                persist(entity);
+            }
+        });
+    }
+
+    @Override
+    public <S extends T> long persistAllInChunks(Stream<S> entities) {
+        try (Stream<S> stream = entities) {
+            return persistAllInChunks(stream.iterator());
+        }
+    }
+
+    @Override
+    public <S extends T> long insertAll(Iterable<S> entities) {
+        StatelessSession statelessSession = statelessSession();
+        return ChunkUtil.executeInChunks(
+            entities.iterator(),
+            getChunkSize(session()),
+            chunk -> ChunkUtil.insertMultiple(statelessSession, chunk)
+        );
+    }
+
+    @Override
+    public <S extends T> long insertAllAndFlush(Iterable<S> entities) {
+        long count = insertAll(entities);
+        ChunkUtil.flushStatelessSession(entityManager);
+        entityManager.flush();
+        return count;
+    }
+
     public <S extends T> S merge(S entity) {
         return entityManager.merge(entity);
     }
@@ -109,8 +148,27 @@ public class HibernateRepositoryImpl<T> implements HibernateRepository<T> {
         });
     }
 
+    @Override
+    public <S extends T> long mergeAllInChunks(Iterator<S> entities) {
+        return executeInChunks(entities, chunk -> {
+            for(S entity : chunk) {
+                merge(entity);
+            }
+        });
+    }
+
+    @Override
+    public <S extends T> long mergeAllInChunks(Stream<S> entities) {
+        try (Stream<S> stream = entities) {
+            return mergeAllInChunks(stream.iterator());
+        }
+    }
+
     public <S extends T> S update(S entity) {
-        statelessSession().update(entity);
+        StatelessSession statelessSession = statelessSession();
+        statelessSession.update(entity);
+        // a single update is executed right away, like it would without JDBC batching
+        StatelessSessionUtil.executeBatch(statelessSession);
         return entity;
     }
 
@@ -125,21 +183,40 @@ public class HibernateRepositoryImpl<T> implements HibernateRepository<T> {
     public <S extends T> List<S> updateAll(Iterable<S> entities) {
         List<S> result = new ArrayList<>();
         for(S entity : entities) {
-            result.add(update(entity));
+            result.add(entity);
+        }
+        StatelessSession statelessSession = statelessSession();
+        int chunkSize = getChunkSize(session());
+        for (int i = 0; i < result.size(); i += chunkSize) {
+            statelessSession.updateMultiple(result.subList(i, Math.min(i + chunkSize, result.size())));
         }
         return result;
     }
 
     @Override
     public <S extends T> List<S> updateAllAndFlush(Iterable<S> entities) {
-        return executeBatch(() -> {
-            List<S> result = new ArrayList<>();
-            for(S entity : entities) {
-                result.add(update(entity));
-            }
-            entityManager.flush();
-            return result;
-        });
+        List<S> result = updateAll(entities);
+        ChunkUtil.flushStatelessSession(entityManager);
+        entityManager.flush();
+        return result;
+    }
+
+    @Override
+    public <S extends T> long upsertAll(Iterable<S> entities) {
+        StatelessSession statelessSession = statelessSession();
+        return ChunkUtil.executeInChunks(
+            entities.iterator(),
+            getChunkSize(session()),
+            chunk -> ChunkUtil.upsertMultiple(statelessSession, chunk)
+        );
+    }
+
+    @Override
+    public <S extends T> long upsertAllAndFlush(Iterable<S> entities) {
+        long count = upsertAll(entities);
+        ChunkUtil.flushStatelessSession(entityManager);
+        entityManager.flush();
+        return count;
     }
 
     protected Integer getBatchSize(Session session) {
@@ -157,7 +234,7 @@ public class HibernateRepositoryImpl<T> implements HibernateRepository<T> {
         Integer originalSessionBatchSize = session.getJdbcBatchSize();
         try {
             if (jdbcBatchSize == null) {
-                session.setJdbcBatchSize(10);
+                session.setJdbcBatchSize(DEFAULT_BATCH_SIZE);
             }
             return callback.get();
         } finally {
@@ -165,6 +242,31 @@ public class HibernateRepositoryImpl<T> implements HibernateRepository<T> {
         }
     }
 
+    /**
+     * Get the number of entities processed between two flushes, which matches the JDBC batch size.
+     */
+    protected int getChunkSize(Session session) {
+        Integer sessionBatchSize = session.getJdbcBatchSize();
+        if (sessionBatchSize != null && sessionBatchSize > 0) {
+            return sessionBatchSize;
+        }
+        Integer jdbcBatchSize = getBatchSize(session);
+        return jdbcBatchSize != null && jdbcBatchSize > 0 ? jdbcBatchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Pass the entities to the given callback in chunks of the JDBC batch size,
+     * flushing and clearing the Persistence Context after every chunk.
+     */
+    protected <S extends T> long executeInChunks(Iterator<S> entities, Consumer<List<S>> callback) {
+        return executeBatch(() -> ChunkUtil.executeInChunks(entities, getChunkSize(session()), chunk -> {
+            callback.accept(chunk);
+            entityManager.flush();
+            entityManager.clear();
+            return chunk.size();
+        }));
+    }
+
     protected Session session() {
         return entityManager.unwrap(Session.class);
     }
@@ -0,0 +1,155 @@
+package io.hypersistence.utils.spring.repository;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The {@code PostgreSQLCopyWriter} streams the rows of a given entity to its table using the
+ * PostgreSQL {@code COPY FROM STDIN} command.
+ * <p>
+ * The rows are encoded by the {@link PostgreSQLRowEncoder}, and written using the {@code COPY} text format.
+ * <p>
+ * This class references the PostgreSQL JDBC Driver, so it must only be loaded when using PostgreSQL.
+ *
+ * @author Vlad Mihalcea
+ */
+final class PostgreSQLCopyWriter implements AutoCloseable {
+
+    private static final String NULL_VALUE = "\\N";
+
+    private final SharedSessionContractImplementor session;
+
+    private final PostgreSQLRowEncoder rowEncoder;
+
+    private final CopyIn copyIn;
+
+    private final String[] values;
+
+    private final StringBuilder rows = new StringBuilder();
+
+    private boolean finished;
+
+    private PostgreSQLCopyWriter(
+            SharedSessionContractImplementor session,
+            PostgreSQLRowEncoder rowEncoder,
+            CopyIn copyIn) {
+        this.session = session;
+        this.rowEncoder = rowEncoder;
+        this.copyIn = copyIn;
+        this.values = new String[rowEncoder.getColumns().size()];
+    }
+
+    /**
+     * Start a {@code COPY FROM STDIN} command for the table of the given entity.
+     *
+     * @param session   the current session
+     * @param persister the entity persister
+     * @return the writer of the entity rows
+     */
+    static PostgreSQLCopyWriter open(SharedSessionContractImplementor session, EntityPersister persister) {
+        PostgreSQLRowEncoder rowEncoder = PostgreSQLRowEncoder.of(session, persister);
+        String sql = String.format(
+            "COPY %s (%s) FROM STDIN",
+            rowEncoder.getTableName(),
+            String.join(", ", rowEncoder.getColumns())
+        );
+        Connection connection = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            return new PostgreSQLCopyWriter(session, rowEncoder, copyIn);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not start the COPY command", sql);
+        }
+    }
+
+    /**
+     * Write the rows of the given entities, generating their identifiers first if needed. All rows are encoded
+     * before any of them is sent, so when an entity cannot be encoded, none of the given rows is written.
+     *
+     * @param entities the entities to write
+     */
+    void write(List<?> entities) {
+        rows.setLength(0);
+        for (Object entity : entities) {
+            rowEncoder.encode(entity, values);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    rows.append('\t');
+                }
+                if (values[i] == null) {
+                    rows.append(NULL_VALUE);
+                } else {
+                    escape(values[i], rows);
+                }
+            }
+            rows.append('\n');
+        }
+
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not write the COPY rows");
+        }
+    }
+
+    /**
+     * Complete the {@code COPY} command.
+     *
+     * @return the number of copied rows
+     */
+    long finish() {
+        try {
+            finished = true;
+            return copyIn.endCopy();
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not complete the COPY command");
+        }
+    }
+
+    /**
+     * Cancel the {@code COPY} command if it was not completed.
+     */
+    @Override
+    public void close() {
+        if (!finished && copyIn.isActive()) {
+            try {
+                copyIn.cancelCopy();
+            } catch (SQLException e) {
+                throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not cancel the COPY command");
+            }
+        }
+    }
+
+    /**
+     * Escape the value according to the {@code COPY} text format.
+     */
+    private static void escape(String text, StringBuilder row) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                default:
+                    row.append(c);
+            }
+        }
+    }
+}
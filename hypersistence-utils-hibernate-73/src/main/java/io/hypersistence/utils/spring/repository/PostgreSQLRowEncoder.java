@@ -0,0 +1,342 @@
+package io.hypersistence.utils.spring.repository;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.internal.Versioning;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.IdentifierGenerationException;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.JdbcMapping;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.metamodel.mapping.SelectableMapping;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.util.PGobject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code PostgreSQLRowEncoder} converts an entity to the PostgreSQL text representation of its table row,
+ * so that it can be sent using bulk commands, like {@code COPY} or {@code unnest}.
+ * <p>
+ * The column values are encoded by the {@link JdbcMapping} of every column, so custom types, like JSON, arrays,
+ * ranges, or inet, get the same representation they would get when bound to an {@code INSERT} statement.
+ * Only the entities mapped to a single table without a discriminator column are supported.
+ * <p>
+ * When a {@link JdbcMapping} binds its value using a {@link PreparedStatement} method the encoder
+ * cannot capture, an {@link UnsupportedBindingException} is thrown, so that the caller can
+ * fall back to the regular {@code INSERT} statements.
+ * <p>
+ * This class references the PostgreSQL JDBC Driver, so it must only be loaded when using PostgreSQL.
+ *
+ * @author Vlad Mihalcea
+ */
+final class PostgreSQLRowEncoder {
+
+    private final SharedSessionContractImplementor session;
+
+    private final EntityPersister persister;
+
+    private final List<AttributeMapping> attributeMappings;
+
+    private final List<String> columns;
+
+    private final CapturingStatement capturingStatement;
+
+    private PostgreSQLRowEncoder(
+            SharedSessionContractImplementor session,
+            EntityPersister persister,
+            List<AttributeMapping> attributeMappings,
+            List<String> columns) {
+        this.session = session;
+        this.persister = persister;
+        this.attributeMappings = attributeMappings;
+        this.columns = Collections.unmodifiableList(columns);
+        this.capturingStatement = new CapturingStatement(
+            session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection()
+        );
+    }
+
+    /**
+     * Check whether the rows of the given entity can be encoded.
+     *
+     * @param persister the entity persister
+     * @return {@code true} if the entity is mapped to a single table and its identifier is not generated by the database
+     */
+    static boolean supports(EntityPersister persister) {
+        return persister.getTableNames().length == 1
+            && persister.getDiscriminatorMapping() == null
+            && !persister.getGenerator().generatedOnExecution();
+    }
+
+    /**
+     * Create the row encoder of the given entity.
+     *
+     * @param session   the current session
+     * @param persister the entity persister
+     * @return the row encoder
+     */
+    static PostgreSQLRowEncoder of(SharedSessionContractImplementor session, EntityPersister persister) {
+        List<String> columns = new ArrayList<>();
+        persister.getIdentifierMapping().forEachSelectable((index, selectable) -> columns.add(selectable.getSelectionExpression()));
+        List<AttributeMapping> attributeMappings = new ArrayList<>();
+        persister.forEachAttributeMapping(attributeMapping -> {
+            if (!(attributeMapping instanceof PluralAttributeMapping)) {
+                attributeMappings.add(attributeMapping);
+                attributeMapping.forEachSelectable((index, selectable) -> {
+                    if (isEncoded(selectable)) {
+                        columns.add(selectable.getSelectionExpression());
+                    }
+                });
+            }
+        });
+        return new PostgreSQLRowEncoder(session, persister, attributeMappings, columns);
+    }
+
+    /**
+     * @return the table the rows are written to
+     */
+    String getTableName() {
+        return persister.getTableName();
+    }
+
+    /**
+     * @return the encoded columns, in the order of the row values
+     */
+    List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Encode the row of the given entity, generating its identifier first if needed.
+     *
+     * @param entity the entity to encode
+     * @param row    the array receiving the textual column values, {@code null} standing for {@code NULL}
+     */
+    void encode(Object entity, String[] row) {
+        Object[] values = persister.getValues(entity);
+        if (persister.isVersioned() && Versioning.seedVersion(entity, values, persister, session)) {
+            persister.setValues(entity, values);
+        }
+        generateValues(entity, values);
+        Object id = generateIdentifier(entity);
+
+        int[] position = new int[1];
+        persister.getIdentifierMapping().breakDownJdbcValues(
+            id,
+            (valueIndex, jdbcValue, jdbcValueMapping) -> row[position[0]++] = encodeValue(jdbcValue, jdbcValueMapping),
+            session
+        );
+        for (AttributeMapping attributeMapping : attributeMappings) {
+            attributeMapping.decompose(
+                values[attributeMapping.getStateArrayPosition()],
+                (valueIndex, jdbcValue, jdbcValueMapping) -> {
+                    if (isEncoded(jdbcValueMapping)) {
+                        row[position[0]++] = encodeValue(jdbcValue, jdbcValueMapping);
+                    }
+                },
+                session
+            );
+        }
+    }
+
+    private Object generateIdentifier(Object entity) {
+        Generator generator = persister.getGenerator();
+        Object id = persister.getIdentifier(entity, session);
+        if (generator.generatedBeforeExecution(entity, session) && (id == null || !generator.allowAssignedIdentifiers())) {
+            id = ((BeforeExecutionGenerator) generator).generate(session, entity, null, EventType.INSERT);
+            persister.setIdentifier(entity, id, session);
+        }
+        if (id == null) {
+            throw new IdentifierGenerationException(
+                "Identifier of entity '" + persister.getEntityName() + "' must be assigned before the bulk insert"
+            );
+        }
+        return id;
+    }
+
+    private void generateValues(Object entity, Object[] values) {
+        if (!persister.hasPreInsertGeneratedProperties()) {
+            return;
+        }
+        Generator[] generators = persister.getGenerators();
+        for (int i = 0; i < generators.length; i++) {
+            Generator generator = generators[i];
+            if (generator != null && generator.generatesOnInsert() && generator.generatedBeforeExecution(entity, session)) {
+                values[i] = ((BeforeExecutionGenerator) generator).generate(session, entity, values[i], EventType.INSERT);
+                persister.setValue(entity, i, values[i]);
+            }
+        }
+    }
+
+    private String encodeValue(Object jdbcValue, SelectableMapping selectable) {
+        return jdbcValue == null ? null : capturingStatement.capture(selectable.getJdbcMapping(), jdbcValue, session);
+    }
+
+    private static boolean isEncoded(SelectableMapping selectable) {
+        return selectable.isInsertable() && !selectable.isFormula();
+    }
+
+    /**
+     * A {@link PreparedStatement} that captures the value bound by a {@link JdbcMapping}, so that
+     * it can be converted to its textual representation.
+     */
+    private static final class CapturingStatement implements InvocationHandler {
+
+        private final Connection connection;
+
+        private final PreparedStatement statement;
+
+        private Object value;
+
+        CapturingStatement(Connection connection) {
+            this.connection = connection;
+            this.statement = (PreparedStatement) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                this
+            );
+        }
+
+        @SuppressWarnings("unchecked")
+        String capture(JdbcMapping jdbcMapping, Object jdbcValue, SharedSessionContractImplementor session) {
+            value = null;
+            try {
+                jdbcMapping.getJdbcValueBinder().bind(statement, jdbcValue, 1, session);
+                return toText(value);
+            } catch (SQLException e) {
+                throw new HibernateException("Could not encode the value [" + jdbcValue + "]", e);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("getConnection")) {
+                return connection;
+            }
+            if (methodName.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                if (methodName.equals("setNull")) {
+                    value = null;
+                } else if (args.length == 3 && args[2] instanceof Calendar) {
+                    value = inTimeZone(args[1], ((Calendar) args[2]).getTimeZone().toZoneId());
+                } else if (hasOnlyNumericOptions(args)) {
+                    // the stream length, the SQL type, or the scale do not change the textual value
+                    value = args[1];
+                } else {
+                    throw new UnsupportedBindingException(method);
+                }
+                return null;
+            }
+            throw new UnsupportedBindingException(method);
+        }
+
+        private static boolean hasOnlyNumericOptions(Object[] args) {
+            for (int i = 2; i < args.length; i++) {
+                if (!(args[i] instanceof Number)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Resolve the value the PostgreSQL JDBC Driver would send for a temporal value bound using a {@link Calendar},
+         * as it happens when the {@code hibernate.jdbc.time_zone} setting is used.
+         */
+        private static Object inTimeZone(Object value, ZoneId zoneId) {
+            if (value instanceof Timestamp) {
+                return OffsetDateTime.ofInstant(((Timestamp) value).toInstant(), zoneId);
+            }
+            if (value instanceof Time) {
+                return Instant.ofEpochMilli(((Time) value).getTime()).atZone(zoneId).toLocalTime();
+            }
+            if (value instanceof java.sql.Date) {
+                return Instant.ofEpochMilli(((java.sql.Date) value).getTime()).atZone(zoneId).toLocalDate();
+            }
+            return value;
+        }
+
+        private static String toText(Object value) throws SQLException {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof PGobject) {
+                return ((PGobject) value).getValue();
+            }
+            if (value instanceof Array) {
+                return value.toString();
+            }
+            if (value instanceof byte[]) {
+                return toHex((byte[]) value);
+            }
+            if (value instanceof Blob) {
+                Blob blob = (Blob) value;
+                return toHex(blob.getBytes(1, (int) blob.length()));
+            }
+            if (value instanceof InputStream) {
+                try {
+                    return toHex(((InputStream) value).readAllBytes());
+                } catch (IOException e) {
+                    throw new SQLException("Could not read the binary value", e);
+                }
+            }
+            if (value instanceof Clob) {
+                Clob clob = (Clob) value;
+                return clob.getSubString(1, (int) clob.length());
+            }
+            if (value instanceof Reader) {
+                try {
+                    StringWriter writer = new StringWriter();
+                    ((Reader) value).transferTo(writer);
+                    return writer.toString();
+                } catch (IOException e) {
+                    throw new SQLException("Could not read the character value", e);
+                }
+            }
+            return value.toString();
+        }
+
+        private static String toHex(byte[] bytes) {
+            StringBuilder hex = new StringBuilder(2 + bytes.length * 2).append("\\x");
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+    }
+
+    /**
+     * Thrown when a value is bound using a {@link PreparedStatement} method the row encoder cannot capture.
+     */
+    static final class UnsupportedBindingException extends HibernateException {
+
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedBindingException(Method method) {
+            super("The row encoder does not support the PreparedStatement " + method.getName() + " method");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package io.hypersistence.utils.spring.repository;
+
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code PostgreSQLUnnestInserter} inserts the rows of a given entity using a single
+ * {@code INSERT INTO ... SELECT ... FROM unnest(?, ?, ...)} statement, each column being bound as one
+ * {@code text[]} array parameter.
+ * <p>
+ * Since the SQL statement does not depend on the number of rows, there's a single execution plan
+ * to cache, no matter how many rows are inserted. The rows are encoded by the {@link PostgreSQLRowEncoder},
+ * and every column is cast from {@code text} to the column type resolved from the {@code pg_attribute} catalog.
+ * <p>
+ * This class references the PostgreSQL JDBC Driver, so it must only be loaded when using PostgreSQL.
+ *
+ * @author Vlad Mihalcea
+ */
+final class PostgreSQLUnnestInserter {
+
+    private static final String COLUMN_TYPES_SQL =
+        "select a.attname, format_type(a.atttypid, null) " +
+        "from pg_attribute a " +
+        "where a.attrelid = cast(? as regclass) and a.attnum > 0 and not a.attisdropped";
+
+    private final SharedSessionContractImplementor session;
+
+    private final PostgreSQLRowEncoder rowEncoder;
+
+    private final String sql;
+
+    private PostgreSQLUnnestInserter(
+            SharedSessionContractImplementor session,
+            PostgreSQLRowEncoder rowEncoder,
+            String sql) {
+        this.session = session;
+        this.rowEncoder = rowEncoder;
+        this.sql = sql;
+    }
+
+    /**
+     * Create the {@code unnest} inserter for the table of the given entity.
+     *
+     * @param session   the current session
+     * @param persister the entity persister
+     * @return the entity inserter
+     */
+    static PostgreSQLUnnestInserter of(SharedSessionContractImplementor session, EntityPersister persister) {
+        PostgreSQLRowEncoder rowEncoder = PostgreSQLRowEncoder.of(session, persister);
+        Map<String, String> columnTypes = columnTypes(session, rowEncoder.getTableName());
+
+        List<String> columns = rowEncoder.getColumns();
+        List<String> selectList = new ArrayList<>(columns.size());
+        List<String> parameters = new ArrayList<>(columns.size());
+        List<String> aliases = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            String columnType = columnTypes.get(unquote(column));
+            if (columnType == null) {
+                throw new IllegalStateException(
+                    "Column [" + column + "] was not found in table [" + rowEncoder.getTableName() + "]"
+                );
+            }
+            String alias = "c" + i;
+            selectList.add(String.format("cast(%s as %s)", alias, columnType));
+            parameters.add("cast(? as text[])");
+            aliases.add(alias);
+        }
+        String sql = String.format(
+            "INSERT INTO %s (%s) SELECT %s FROM unnest(%s) AS u(%s)",
+            rowEncoder.getTableName(),
+            String.join(", ", columns),
+            String.join(", ", selectList),
+            String.join(", ", parameters),
+            String.join(", ", aliases)
+        );
+        return new PostgreSQLUnnestInserter(session, rowEncoder, sql);
+    }
+
+    /**
+     * Insert the given entities using a single statement, generating their identifiers first if needed.
+     *
+     * @param entities the entities to insert
+     * @return the number of inserted rows
+     */
+    int insert(List<?> entities) {
+        int columnCount = rowEncoder.getColumns().size();
+        String[][] columnValues = new String[columnCount][entities.size()];
+        String[] row = new String[columnCount];
+        for (int i = 0; i < entities.size(); i++) {
+            rowEncoder.encode(entities.get(i), row);
+            for (int j = 0; j < columnCount; j++) {
+                columnValues[j][i] = row[j];
+            }
+        }
+
+        JdbcCoordinator coordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = coordinator.getStatementPreparer().prepareStatement(sql);
+        try {
+            Connection connection = statement.getConnection();
+            for (int j = 0; j < columnCount; j++) {
+                statement.setArray(j + 1, connection.createArrayOf("text", columnValues[j]));
+            }
+            return coordinator.getResultSetReturn().executeUpdate(statement, sql);
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "could not insert the unnest rows", sql);
+        } finally {
+            release(coordinator, statement);
+        }
+    }
+
+    private static Map<String, String> columnTypes(SharedSessionContractImplementor session, String tableName) {
+        JdbcCoordinator coordinator = session.getJdbcCoordinator();
+        PreparedStatement statement = coordinator.getStatementPreparer().prepareStatement(COLUMN_TYPES_SQL);
+        try {
+            statement.setString(1, tableName);
+            Map<String, String> columnTypes = new HashMap<>();
+            ResultSet resultSet = coordinator.getResultSetReturn().extract(statement, COLUMN_TYPES_SQL);
+            try {
+                while (resultSet.next()) {
+                    columnTypes.put(resultSet.getString(1), resultSet.getString(2));
+                }
+            } finally {
+                coordinator.getLogicalConnection().getResourceRegistry().release(resultSet, statement);
+            }
+            return columnTypes;
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(
+                e, "could not resolve the column types", COLUMN_TYPES_SQL
+            );
+        } finally {
+            release(coordinator, statement);
+        }
+    }
+
+    /**
+     * Release the given statement through the JDBC coordinator that prepared it, like Hibernate does.
+     */
+    private static void release(JdbcCoordinator coordinator, PreparedStatement statement) {
+        coordinator.getLogicalConnection().getResourceRegistry().release(statement);
+        coordinator.afterStatementExecution();
+    }
+
+    /**
+     * Resolve the catalog name of the given column, as unquoted identifiers are folded to lower case.
+     */
+    private static String unquote(String column) {
+        if (column.length() > 1 && column.startsWith("\"") && column.endsWith("\"")) {
+            return column.substring(1, column.length() - 1);
+        }
+        return column.toLowerCase(Locale.ROOT);
+    }
+}
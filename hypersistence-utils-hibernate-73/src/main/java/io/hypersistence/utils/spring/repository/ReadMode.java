@@ -0,0 +1,26 @@
+package io.hypersistence.utils.spring.repository;
+
+/**
+ * The {@code ReadMode} defines how the {@link BaseJpaRepository} read methods load the entities.
+ *
+ * @author Vlad Mihalcea
+ */
+public enum ReadMode {
+
+    /**
+     * The entities are loaded into the Persistence Context, and their changes are detected at flush time.
+     */
+    READ_WRITE,
+
+    /**
+     * The entities are loaded into the Persistence Context in read-only mode, so Hibernate does not
+     * keep the loaded state snapshot, and the entities are skipped by the flush-time dirty checking.
+     */
+    READ_ONLY,
+
+    /**
+     * The entities are fetched by the {@code StatelessSession} bound to the current transaction,
+     * so they are not attached to the Persistence Context at all.
+     */
+    STATELESS
+}
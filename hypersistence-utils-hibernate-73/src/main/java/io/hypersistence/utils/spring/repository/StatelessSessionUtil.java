@@ -3,6 +3,8 @@ package io.hypersistence.utils.spring.repository;
 import jakarta.persistence.EntityManager;
 import org.hibernate.Session;
 import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.Serializable;
@@ -41,8 +43,54 @@ class StatelessSessionUtil implements Serializable {
                 return statelessSession;
             }
             statelessSession = session.getSessionFactory().openStatelessSession(connection);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // the pending batch is executed before the transaction commits, so batching is safe
+                Integer jdbcBatchSize = session.getJdbcBatchSize();
+                statelessSession.setJdbcBatchSize(
+                    jdbcBatchSize != null ? jdbcBatchSize : session.unwrap(SharedSessionContractImplementor.class).getConfiguredJdbcBatchSize()
+                );
+                TransactionSynchronizationManager.registerSynchronization(
+                    new StatelessSessionSynchronization(statelessSessionKey, statelessSession)
+                );
+            }
             TransactionSynchronizationManager.bindResource(statelessSessionKey, statelessSession);
             return statelessSession;
         });
     }
+
+    /**
+     * Execute the pending JDBC batch of the given {@link StatelessSession}.
+     *
+     * @param statelessSession stateless session
+     */
+    static void executeBatch(StatelessSession statelessSession) {
+        statelessSession.unwrap(SharedSessionContractImplementor.class).getJdbcCoordinator().executeBatch();
+    }
+
+    /**
+     * Executes the pending JDBC batch before the Spring transaction commits, and closes the
+     * {@link StatelessSession} bound to the transaction connection after the transaction completes.
+     */
+    private static class StatelessSessionSynchronization implements TransactionSynchronization {
+
+        private final StatelessSessionUtil statelessSessionKey;
+
+        private final StatelessSession statelessSession;
+
+        StatelessSessionSynchronization(StatelessSessionUtil statelessSessionKey, StatelessSession statelessSession) {
+            this.statelessSessionKey = statelessSessionKey;
+            this.statelessSession = statelessSession;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            executeBatch(statelessSession);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(statelessSessionKey);
+            statelessSession.close();
+        }
+    }
 }
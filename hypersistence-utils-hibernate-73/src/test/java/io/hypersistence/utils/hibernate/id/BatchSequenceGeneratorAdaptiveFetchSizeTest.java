@@ -0,0 +1,110 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BatchSequenceGeneratorAdaptiveFetchSizeTest extends AbstractTest {
+
+    private static final int FETCH_SIZE = 10;
+
+    private static final int MAX_FETCH_SIZE = 80;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, MAX_FETCH_SIZE);
+        properties.put(AvailableSettings.ORDER_INSERTS, true);
+    }
+
+    @Test
+    public void test() {
+        BatchSequenceGenerator generator = (BatchSequenceGenerator) sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(Post.class)
+            .getGenerator();
+
+        assertEquals(FETCH_SIZE, generator.getFetchSize());
+        assertEquals(0, generator.getReplenishCount());
+
+        int postCount = 300;
+
+        QueryCountHolder.clear();
+        doInJPA(entityManager -> {
+            for (int i = 0; i < postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setTitle(String.format("Post %d", i + 1))
+                );
+            }
+        });
+
+        // The block sizes are 10, 20, 40, 80, 80, and 80 since the identifiers are consumed quickly
+        QueryCount queryCount = QueryCountHolder.getGrandTotal();
+        assertEquals(6L, queryCount.getSelect());
+        assertEquals(6L, generator.getReplenishCount());
+        assertEquals(MAX_FETCH_SIZE, generator.getFetchSize());
+
+        doInJPA(entityManager -> {
+            List<Long> ids = entityManager.createQuery(
+                "select distinct p.id from Post p", Long.class)
+            .getResultList();
+            assertEquals(postCount, ids.size());
+        });
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @BatchSequence(
+            name = "SEQ_PARENT_ID",
+            fetchSize = FETCH_SIZE,
+            minFetchSize = 5,
+            maxFetchSize = MAX_FETCH_SIZE
+        )
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
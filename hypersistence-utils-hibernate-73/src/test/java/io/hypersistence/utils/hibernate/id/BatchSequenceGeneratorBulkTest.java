@@ -0,0 +1,138 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BatchSequenceGeneratorBulkTest extends AbstractTest {
+
+    private static final int FETCH_SIZE = 10;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, 50);
+        properties.put(AvailableSettings.ORDER_INSERTS, true);
+    }
+
+    @Test
+    public void testReserve() {
+        int postCount = FETCH_SIZE * 25;
+
+        BatchSequenceGenerator generator = (BatchSequenceGenerator) sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(Post.class)
+            .getGenerator();
+
+        QueryCountHolder.clear();
+        doInJPA(entityManager -> {
+            SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+            try (IdentifierReservation reservation = IdentifierReservation.reserve(generator, session, postCount)) {
+                for (int i = 0; i < postCount; i++) {
+                    entityManager.persist(
+                        new Post()
+                            .setTitle(String.format("Post %d", i + 1))
+                    );
+                }
+                assertEquals(0, reservation.remaining());
+            }
+        });
+
+        // All the identifiers are fetched by a single sequence call
+        assertEquals(1L, QueryCountHolder.getGrandTotal().getSelect());
+        assertEquals(1L, generator.getReplenishCount());
+
+        doInJPA(entityManager -> {
+            List<Long> ids = entityManager.createQuery(
+                "select distinct p.id from Post p", Long.class)
+            .getResultList();
+            assertEquals(postCount, ids.size());
+
+            // once the reservation is closed, the identifiers are fetched in blocks again
+            entityManager.persist(new Post().setTitle("High-Performance Java Persistence"));
+        });
+
+        assertEquals(2L, generator.getReplenishCount());
+    }
+
+    @Test
+    public void testReserveFromPooledBlock() {
+        BatchSequenceGenerator generator = (BatchSequenceGenerator) sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(Post.class)
+            .getGenerator();
+
+        doInJPA(entityManager -> {
+            entityManager.persist(new Post().setTitle("High-Performance Java Persistence"));
+        });
+
+        assertEquals(1L, generator.getReplenishCount());
+
+        QueryCountHolder.clear();
+        doInJPA(entityManager -> {
+            SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+            try (IdentifierReservation reservation = IdentifierReservation.reserve(generator, session, 2)) {
+                entityManager.persist(new Post().setTitle("Post 1"));
+                entityManager.persist(new Post().setTitle("Post 2"));
+            }
+        });
+
+        // fewer identifiers than the fetch size are served by the current block, without any sequence call
+        assertEquals(0L, QueryCountHolder.getGrandTotal().getSelect());
+        assertEquals(1L, generator.getReplenishCount());
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @BatchSequence(
+            name = "SEQ_PARENT_ID",
+            fetchSize = FETCH_SIZE
+        )
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import io.hypersistence.utils.hibernate.util.providers.H2DataSourceProvider;
+import io.hypersistence.utils.test.providers.DataSourceProvider;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the lock-free {@link BatchSequenceGenerator} identifier hand-out generates unique identifiers
+ * when called by multiple threads, and benchmarks it against a generator guarded by a global lock,
+ * which is how identifiers were handed out previously.
+ *
+ * @author Vlad Mihalcea
+ */
+public class BatchSequenceGeneratorConcurrencyTest extends AbstractTest {
+
+    private static final int FETCH_SIZE = 50;
+
+    private static final int THREAD_COUNT = 64;
+
+    private static final int IDENTIFIERS_PER_THREAD = 5_000;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected DataSourceProvider dataSourceProvider() {
+        return new H2DataSourceProvider() {
+            @Override
+            public DataSource dataSource() {
+                JdbcConnectionPool dataSource = (JdbcConnectionPool) super.dataSource();
+                dataSource.setMaxConnections(THREAD_COUNT);
+                return dataSource;
+            }
+        };
+    }
+
+    @Override
+    protected boolean proxyDataSource() {
+        return false;
+    }
+
+    @Test
+    public void testConcurrentGenerateUniqueness() throws Exception {
+        BatchSequenceGenerator generator = (BatchSequenceGenerator) sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(Post.class)
+            .getGenerator();
+
+        // every thread goes through several blocks, so the replenish step is raced too
+        generate(generator, (g, session) -> g.generate(session, null), FETCH_SIZE * 4);
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually")
+    public void testConcurrentGenerate() throws Exception {
+        BatchSequenceGenerator generator = (BatchSequenceGenerator) sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(Post.class)
+            .getGenerator();
+
+        Lock globalLock = new ReentrantLock();
+        BiFunction<BatchSequenceGenerator, SharedSessionContractImplementor, Object> lockedGenerate = (g, session) -> {
+            globalLock.lock();
+            try {
+                return g.generate(session, null);
+            } finally {
+                globalLock.unlock();
+            }
+        };
+        BiFunction<BatchSequenceGenerator, SharedSessionContractImplementor, Object> lockFreeGenerate =
+            (g, session) -> g.generate(session, null);
+
+        //Warming up
+        generate(generator, lockedGenerate, 100);
+        generate(generator, lockFreeGenerate, 100);
+
+        long lockedStartNanos = System.nanoTime();
+        generate(generator, lockedGenerate, IDENTIFIERS_PER_THREAD);
+        long lockedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lockedStartNanos);
+
+        long lockFreeStartNanos = System.nanoTime();
+        generate(generator, lockFreeGenerate, IDENTIFIERS_PER_THREAD);
+        long lockFreeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lockFreeStartNanos);
+
+        int identifierCount = THREAD_COUNT * IDENTIFIERS_PER_THREAD;
+        LOGGER.info(
+            "{} threads generated {} identifiers in {} ms using a global lock ({} ids/s) " +
+            "and in {} ms using the lock-free pool ({} ids/s)",
+            THREAD_COUNT,
+            identifierCount,
+            lockedMillis,
+            identifierCount * 1000L / Math.max(lockedMillis, 1),
+            lockFreeMillis,
+            identifierCount * 1000L / Math.max(lockFreeMillis, 1)
+        );
+    }
+
+    private void generate(
+            BatchSequenceGenerator generator,
+            BiFunction<BatchSequenceGenerator, SharedSessionContractImplementor, Object> generateFunction,
+            int identifiersPerThread) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        try {
+            List<Future<List<Object>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executorService.submit(() -> doInHibernate(session -> {
+                    SharedSessionContractImplementor sessionImplementor = session.unwrap(SharedSessionContractImplementor.class);
+                    List<Object> identifiers = new ArrayList<>(identifiersPerThread);
+                    awaitOnLatch(startLatch);
+                    for (int j = 0; j < identifiersPerThread; j++) {
+                        identifiers.add(generateFunction.apply(generator, sessionImplementor));
+                    }
+                    return identifiers;
+                })));
+            }
+            startLatch.countDown();
+
+            Set<Object> uniqueIdentifiers = new HashSet<>();
+            for (Future<List<Object>> future : futures) {
+                for (Object identifier : future.get()) {
+                    assertEquals(Long.class, identifier.getClass());
+                    uniqueIdentifiers.add(identifier);
+                }
+            }
+            assertEquals(THREAD_COUNT * identifiersPerThread, uniqueIdentifiers.size());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @BatchSequence(
+            name = "SEQ_PARENT_ID",
+            fetchSize = FETCH_SIZE
+        )
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.Database;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BatchSequenceGeneratorCoordinatedTest extends AbstractTest {
+
+    private static final int FETCH_SIZE = 10;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class
+        };
+    }
+
+    @Override
+    protected Database database() {
+        return Database.H2;
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, FETCH_SIZE);
+        properties.put(AvailableSettings.ORDER_INSERTS, true);
+    }
+
+    @Test
+    public void test() {
+        int postCount = FETCH_SIZE * 3;
+
+        QueryCountHolder.clear();
+        doInJPA(entityManager -> {
+            for (int i = 0; i < postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setTitle(String.format("Post %d", i + 1))
+                );
+                entityManager.persist(
+                    new PostComment()
+                        .setReview(String.format("Review %d", i + 1))
+                );
+            }
+        });
+
+        // The first blocks are fetched individually, the following ones in a single round trip.
+        // The recursive CTEs are recognized as OTHER instead of SELECT by datasource-proxy.
+        QueryCount queryCount = QueryCountHolder.getGrandTotal();
+        assertEquals(4L, queryCount.getOther());
+
+        doInJPA(entityManager -> {
+            assertEquals(
+                postCount,
+                entityManager.createQuery("select distinct p.id from Post p", Long.class)
+                    .getResultList()
+                    .size()
+            );
+            assertEquals(
+                postCount,
+                entityManager.createQuery("select distinct pc.id from PostComment pc", Long.class)
+                    .getResultList()
+                    .size()
+            );
+        });
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @BatchSequence(
+            name = "SEQ_PARENT_ID",
+            fetchSize = FETCH_SIZE,
+            coordinated = true
+        )
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+
+    @Entity(name = "PostComment")
+    @Table(name = "post_comment")
+    public static class PostComment {
+
+        @Id
+        @BatchSequence(
+            name = "SEQ_CHILD_ID",
+            fetchSize = FETCH_SIZE,
+            coordinated = true
+        )
+        private Long id;
+
+        private String review;
+
+        public Long getId() {
+            return id;
+        }
+
+        public PostComment setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getReview() {
+            return review;
+        }
+
+        public PostComment setReview(String review) {
+            this.review = review;
+            return this;
+        }
+    }
+}
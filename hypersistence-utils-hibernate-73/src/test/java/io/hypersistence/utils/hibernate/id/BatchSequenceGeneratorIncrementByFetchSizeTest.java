@@ -0,0 +1,149 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BatchSequenceGeneratorIncrementByFetchSizeTest extends AbstractTest {
+
+    private static final int FETCH_SIZE = 10;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, FETCH_SIZE);
+        properties.put(AvailableSettings.ORDER_INSERTS, true);
+    }
+
+    @Test
+    public void test() {
+        int postCount = FETCH_SIZE * 3;
+
+        BatchSequenceGenerator generator = generator();
+
+        doInJPA(entityManager -> {
+            Object increment = entityManager.createNativeQuery(
+                "select increment from information_schema.sequences where sequence_name = 'SEQ_PARENT_ID'")
+            .getSingleResult();
+            assertEquals(FETCH_SIZE, Integer.parseInt(increment.toString()));
+        });
+
+        doInJPA(entityManager -> {
+            for (int i = 0; i < postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setTitle(String.format("Post %d", i + 1))
+                );
+            }
+        });
+
+        // Every block is fetched by a single sequence call
+        assertEquals(3L, generator.getReplenishCount());
+
+        doInJPA(entityManager -> {
+            List<Long> ids = entityManager.createQuery(
+                "select p.id from Post p order by p.id", Long.class)
+            .getResultList();
+            assertEquals(postCount, ids.size());
+            for (int i = 0; i < postCount; i++) {
+                assertEquals(Long.valueOf(i + 1), ids.get(i));
+            }
+        });
+    }
+
+    @Test
+    public void testReserve() {
+        int postCount = FETCH_SIZE * 2 + 5;
+
+        BatchSequenceGenerator generator = generator();
+
+        QueryCountHolder.clear();
+        doInJPA(entityManager -> {
+            SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+            try (IdentifierReservation reservation = IdentifierReservation.reserve(generator, session, postCount)) {
+                for (int i = 0; i < postCount; i++) {
+                    entityManager.persist(
+                        new Post()
+                            .setTitle(String.format("Post %d", i + 1))
+                    );
+                }
+            }
+        });
+
+        // The three sequence values are fetched in a single round trip
+        assertEquals(1L, QueryCountHolder.getGrandTotal().getSelect());
+
+        doInJPA(entityManager -> {
+            // the rest of the third block is not used
+            entityManager.persist(new Post().setTitle("High-Performance Java Persistence"));
+        });
+
+        doInJPA(entityManager -> {
+            Long maxId = entityManager.createQuery(
+                "select max(p.id) from Post p", Long.class)
+            .getSingleResult();
+            assertEquals(Long.valueOf(FETCH_SIZE * 3 + 1), maxId);
+        });
+    }
+
+    private BatchSequenceGenerator generator() {
+        return (BatchSequenceGenerator) sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(Post.class)
+            .getGenerator();
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @BatchSequence(
+            name = "SEQ_PARENT_ID",
+            fetchSize = FETCH_SIZE,
+            incrementByFetchSize = true
+        )
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BatchSequenceGeneratorPrefetchTest extends AbstractTest {
+
+    private static final int FETCH_SIZE = 50;
+
+    private static final int PREFETCH_THRESHOLD = 10;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, FETCH_SIZE);
+        properties.put(AvailableSettings.ORDER_INSERTS, true);
+    }
+
+    @Test
+    public void test() {
+        int postCount = FETCH_SIZE * 3;
+
+        QueryCountHolder.clear();
+        doInJPA(entityManager -> {
+            for (int i = 0; i < postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setTitle(String.format("Post %d", i + 1))
+                );
+            }
+        });
+
+        // The sequence blocks following the first one are fetched by the prefetch thread
+        QueryCount queryCount = QueryCountHolder.getGrandTotal();
+        assertEquals(1L, queryCount.getSelect());
+
+        doInJPA(entityManager -> {
+            List<Long> ids = entityManager.createQuery(
+                "select distinct p.id from Post p", Long.class)
+            .getResultList();
+            assertEquals(postCount, ids.size());
+        });
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @BatchSequence(
+            name = "SEQ_PARENT_ID",
+            fetchSize = FETCH_SIZE,
+            prefetchThreshold = PREFETCH_THRESHOLD
+        )
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
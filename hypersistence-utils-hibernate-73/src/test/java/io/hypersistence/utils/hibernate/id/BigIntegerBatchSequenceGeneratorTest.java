@@ -0,0 +1,89 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.dialect.Database;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BigIntegerBatchSequenceGeneratorTest extends AbstractTest {
+
+    private static final int FETCH_SIZE = 10;
+
+    private static final BigInteger START_VALUE = BigInteger.TEN.pow(20);
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected Database database() {
+        return Database.ORACLE;
+    }
+
+    @Override
+    protected void afterInit() {
+        executeStatement("drop sequence seq_post_id");
+        executeStatement("create sequence seq_post_id start with " + START_VALUE + " increment by 1");
+    }
+
+    @Test
+    public void test() {
+        int postCount = FETCH_SIZE * 2 + 5;
+
+        doInJPA(entityManager -> {
+            for (int i = 0; i < postCount; i++) {
+                entityManager.persist(new Post().setTitle("Post " + (i + 1)));
+            }
+        });
+
+        doInJPA(entityManager -> {
+            List<Post> posts = entityManager.createQuery("SELECT p FROM Post p ORDER BY p.id", Post.class)
+                .getResultList();
+            assertEquals(postCount, posts.size());
+            //The sequence values are beyond the long range
+            for (int i = 0; i < postCount; i++) {
+                assertEquals(START_VALUE.add(BigInteger.valueOf(i)), posts.get(i).getId());
+            }
+        });
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @BatchSequence(
+            name = "seq_post_id",
+            fetchSize = FETCH_SIZE
+        )
+        private BigInteger id;
+
+        private String title;
+
+        public BigInteger getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.tsid.TSID;
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class LeasedNodeTsidFactorySupplierTest extends AbstractTest {
+
+    private static final int NODE_BITS = LeasedNodeTsidFactorySupplier.DEFAULT_NODE_BITS;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Test
+    public void testPersist() {
+        Post post = new Post().setTitle("High-Performance Java Persistence");
+
+        doInJPA(entityManager -> {
+            entityManager.persist(post);
+        });
+
+        assertNotNull(post.getId());
+
+        doInJPA(entityManager -> {
+            assertNotNull(entityManager.find(Post.class, post.getId()));
+
+            List<Number> nodes = entityManager.createNativeQuery(
+                "select node_id from tsid_node_lease")
+            .getResultList();
+            assertEquals(1, nodes.size());
+
+            int node = nodes.get(0).intValue();
+            assertEquals(node, node(post.getId()));
+        });
+    }
+
+    @Test
+    public void testLeaseAndRelease() {
+        ConnectionProvider connectionProvider = sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+
+        LeasedNodeTsidFactorySupplier firstSupplier = new LeasedNodeTsidFactorySupplier();
+        firstSupplier.configure(connectionProvider);
+        LeasedNodeTsidFactorySupplier secondSupplier = new LeasedNodeTsidFactorySupplier();
+        secondSupplier.configure(connectionProvider);
+
+        try {
+            TSID firstTsid = firstSupplier.generate();
+            TSID secondTsid = secondSupplier.generate();
+
+            assertNotEquals(firstSupplier.getNode(), secondSupplier.getNode());
+            assertEquals(firstSupplier.getNode(), node(firstTsid.toLong()));
+            assertEquals(secondSupplier.getNode(), node(secondTsid.toLong()));
+            assertEquals(2, leaseCount());
+        } finally {
+            firstSupplier.close();
+            secondSupplier.close();
+        }
+
+        assertEquals(-1, firstSupplier.getNode());
+        assertEquals(0, leaseCount());
+    }
+
+    @Test
+    public void testExpiredLeaseTakeover() {
+        ConnectionProvider connectionProvider = sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+
+        // a single node bit allows only two nodes to be leased
+        LeasedNodeTsidFactorySupplier firstSupplier = new LeasedNodeTsidFactorySupplier(
+            1, Duration.ofMinutes(1), LeasedNodeTsidFactorySupplier.DEFAULT_TABLE_NAME
+        );
+        firstSupplier.configure(connectionProvider);
+        LeasedNodeTsidFactorySupplier secondSupplier = new LeasedNodeTsidFactorySupplier(
+            1, Duration.ofMinutes(1), LeasedNodeTsidFactorySupplier.DEFAULT_TABLE_NAME
+        );
+        secondSupplier.configure(connectionProvider);
+        LeasedNodeTsidFactorySupplier thirdSupplier = new LeasedNodeTsidFactorySupplier(
+            1, Duration.ofMinutes(1), LeasedNodeTsidFactorySupplier.DEFAULT_TABLE_NAME
+        );
+        thirdSupplier.configure(connectionProvider);
+
+        try {
+            firstSupplier.generate();
+            secondSupplier.generate();
+
+            // simulate a JVM that stopped without releasing its lease
+            int expiredNode = firstSupplier.getNode();
+            doInJPA(entityManager -> {
+                entityManager.createNativeQuery(
+                    "update tsid_node_lease set expires_at = 0 where node_id = :node")
+                .setParameter("node", expiredNode)
+                .executeUpdate();
+            });
+
+            thirdSupplier.generate();
+            assertEquals(expiredNode, thirdSupplier.getNode());
+            assertEquals(2, leaseCount());
+        } finally {
+            firstSupplier.close();
+            secondSupplier.close();
+            thirdSupplier.close();
+        }
+
+        assertEquals(0, leaseCount());
+    }
+
+    @Test
+    public void testReleaseOnSessionFactoryClose() {
+        ConnectionProvider connectionProvider = sessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(ConnectionProvider.class);
+
+        doInJPA(entityManager -> {
+            entityManager.persist(new Post().setTitle("High-Performance Java Persistence"));
+        });
+
+        List<LeasedNodeTsidFactorySupplier> suppliers = LeasedNodeTsidFactorySupplier.suppliers(connectionProvider);
+        assertEquals(1, suppliers.size());
+        LeasedNodeTsidFactorySupplier supplier = suppliers.get(0);
+        assertNotEquals(-1, supplier.getNode());
+
+        entityManagerFactory().close();
+
+        assertEquals(-1, supplier.getNode());
+        assertTrue(LeasedNodeTsidFactorySupplier.suppliers(connectionProvider).isEmpty());
+    }
+
+    private int leaseCount() {
+        return doInJPA(entityManager -> {
+            return ((Number) entityManager.createNativeQuery(
+                "select count(*) from tsid_node_lease")
+            .getSingleResult()).intValue();
+        });
+    }
+
+    private static int node(long tsid) {
+        // the node bits are followed by the counter bits
+        return (int) ((tsid >>> (22 - NODE_BITS)) & ((1 << NODE_BITS) - 1));
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @Tsid(LeasedNodeTsidFactorySupplier.class)
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
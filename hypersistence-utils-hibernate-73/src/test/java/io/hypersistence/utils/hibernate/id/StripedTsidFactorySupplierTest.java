@@ -0,0 +1,203 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.tsid.TSID;
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class StripedTsidFactorySupplierTest extends AbstractTest {
+
+    private static final int THREAD_COUNT = 64;
+
+    private static final int TSIDS_PER_THREAD = 20_000;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Test
+    public void testPersist() {
+        Post post = new Post().setTitle("High-Performance Java Persistence");
+
+        doInJPA(entityManager -> {
+            entityManager.persist(post);
+        });
+
+        assertNotNull(post.getId());
+
+        doInJPA(entityManager -> {
+            assertNotNull(entityManager.find(Post.class, post.getId()));
+        });
+    }
+
+    @Test
+    public void testNodePartitioning() {
+        StripedTsidFactorySupplier supplier = new StripedTsidFactorySupplier(5, 4, 2);
+
+        for (int i = 0; i < 100; i++) {
+            long tsid = supplier.generate().toLong();
+            // the 4 node bits are followed by the 2 stripe bits and the 16 counter bits
+            assertEquals(5, (tsid >>> 18) & 0xF);
+        }
+    }
+
+    @Test
+    public void testDefaultNode() {
+        System.setProperty("tsid.node", "7");
+        System.setProperty("tsid.node.count", "16");
+        try {
+            StripedTsidFactorySupplier supplier = new StripedTsidFactorySupplier();
+
+            for (int i = 0; i < 100; i++) {
+                long tsid = supplier.generate().toLong();
+                // the 4 node bits are the first ones following the timestamp
+                assertEquals(7, (tsid >>> 18) & 0xF);
+            }
+        } finally {
+            System.clearProperty("tsid.node");
+            System.clearProperty("tsid.node.count");
+        }
+    }
+
+    @Test
+    public void testBulkGenerate() {
+        StripedTsidFactorySupplier supplier = new StripedTsidFactorySupplier(0, 0, 12);
+
+        // the counter of each stripe has 10 bits, so the values span multiple milliseconds
+        TSID[] tsids = supplier.generate(5000);
+
+        Set<Long> uniqueTsids = new HashSet<>();
+        for (int i = 0; i < tsids.length; i++) {
+            if (i > 0) {
+                assertTrue(tsids[i].toLong() > tsids[i - 1].toLong());
+            }
+            uniqueTsids.add(tsids[i].toLong());
+        }
+        assertEquals(tsids.length, uniqueTsids.size());
+        assertTrue(supplier.generate().toLong() > tsids[tsids.length - 1].toLong());
+    }
+
+    @Test
+    public void testConcurrentGenerate() throws Exception {
+        StripedTsidFactorySupplier stripedSupplier = new StripedTsidFactorySupplier();
+
+        generate(stripedSupplier::generate, 1000);
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually")
+    public void testContention() throws Exception {
+        TSID.Factory sharedFactory = Tsid.FactorySupplier.INSTANCE.get();
+        StripedTsidFactorySupplier stripedSupplier = new StripedTsidFactorySupplier();
+
+        //Warming up
+        generate(sharedFactory::generate, 1000);
+        generate(stripedSupplier::generate, 1000);
+
+        long sharedStartNanos = System.nanoTime();
+        generate(sharedFactory::generate, TSIDS_PER_THREAD);
+        long sharedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sharedStartNanos);
+
+        long stripedStartNanos = System.nanoTime();
+        generate(stripedSupplier::generate, TSIDS_PER_THREAD);
+        long stripedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stripedStartNanos);
+
+        int tsidCount = THREAD_COUNT * TSIDS_PER_THREAD;
+        LOGGER.info(
+            "{} threads generated {} TSIDs in {} ms using the shared factory ({} TSIDs/s) " +
+            "and in {} ms using the striped supplier ({} TSIDs/s)",
+            THREAD_COUNT,
+            tsidCount,
+            sharedMillis,
+            tsidCount * 1000L / Math.max(sharedMillis, 1),
+            stripedMillis,
+            tsidCount * 1000L / Math.max(stripedMillis, 1)
+        );
+    }
+
+    private void generate(Supplier<TSID> tsidSupplier, int tsidsPerThread) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executorService.submit(() -> {
+                    long[] tsids = new long[tsidsPerThread];
+                    awaitOnLatch(startLatch);
+                    for (int j = 0; j < tsidsPerThread; j++) {
+                        tsids[j] = tsidSupplier.get().toLong();
+                    }
+                    return tsids;
+                }));
+            }
+            startLatch.countDown();
+
+            Set<Long> uniqueTsids = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] tsids = future.get();
+                for (int j = 0; j < tsids.length; j++) {
+                    if (j > 0) {
+                        assertTrue(tsids[j] > tsids[j - 1]);
+                    }
+                    uniqueTsids.add(tsids[j]);
+                }
+            }
+            assertEquals(THREAD_COUNT * tsidsPerThread, uniqueTsids.size());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @Tsid(StripedTsidFactorySupplier.class)
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
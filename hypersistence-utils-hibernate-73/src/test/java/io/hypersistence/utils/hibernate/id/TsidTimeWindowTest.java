@@ -0,0 +1,179 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.tsid.TSID;
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class TsidTimeWindowTest extends AbstractTest {
+
+    private final Instant now = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class
+        };
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (int hours = 0; hours < 5; hours++) {
+                for (int i = 0; i < 3; i++) {
+                    TSID tsid = tsidFactory(now.minus(hours, ChronoUnit.HOURS)).generate();
+                    entityManager.persist(
+                        new Post()
+                            .setId(tsid.toLong())
+                            .setTitle(String.format("Post created %d hours ago", hours))
+                    );
+                    entityManager.persist(
+                        new PostComment()
+                            .setId(tsid.toString())
+                            .setReview(String.format("Comment created %d hours ago", hours))
+                    );
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMinMaxTsid() {
+        TSID tsid = tsidFactory(now).generate();
+
+        assertTrue(TsidTimeWindow.minTsid(now) <= tsid.toLong());
+        assertTrue(TsidTimeWindow.maxTsid(now) >= tsid.toLong());
+        assertTrue(TsidTimeWindow.maxTsid(now.minusMillis(1)) < tsid.toLong());
+        assertTrue(TsidTimeWindow.minTsid(now.plusMillis(1)) > tsid.toLong());
+
+        assertTrue(TsidTimeWindow.minTsidString(now).compareTo(tsid.toString()) <= 0);
+        assertTrue(TsidTimeWindow.maxTsidString(now).compareTo(tsid.toString()) >= 0);
+
+        assertEquals(now, TSID.from(TsidTimeWindow.minTsid(now)).getInstant());
+        assertEquals(now, TSID.from(TsidTimeWindow.maxTsidString(now)).getInstant());
+    }
+
+    @Test
+    public void testCriteria() {
+        TsidTimeWindow window = TsidTimeWindow.between(now.minus(90, ChronoUnit.MINUTES), now);
+
+        doInJPA(entityManager -> {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+            CriteriaQuery<Post> postQuery = builder.createQuery(Post.class);
+            Root<Post> post = postQuery.from(Post.class);
+            postQuery.where(window.toPredicate(builder, post.get("id")));
+            List<Post> posts = entityManager.createQuery(postQuery).getResultList();
+            assertEquals(6, posts.size());
+
+            CriteriaQuery<PostComment> commentQuery = builder.createQuery(PostComment.class);
+            Root<PostComment> comment = commentQuery.from(PostComment.class);
+            commentQuery.where(window.toPredicate(builder, comment.get("id")));
+            List<PostComment> comments = entityManager.createQuery(commentQuery).getResultList();
+            assertEquals(6, comments.size());
+        });
+    }
+
+    @Test
+    public void testJpql() {
+        TsidTimeWindow window = TsidTimeWindow.since(now.minus(150, ChronoUnit.MINUTES));
+
+        doInJPA(entityManager -> {
+            List<Post> posts = window.bind(
+                entityManager.createQuery(
+                    "select p from Post p where " + window.toJpqlPredicate("p.id"), Post.class),
+                Long.class
+            )
+            .getResultList();
+            assertEquals(9, posts.size());
+
+            List<PostComment> comments = window.bind(
+                entityManager.createQuery(
+                    "select pc from PostComment pc where " + window.toJpqlPredicate("pc.id"), PostComment.class),
+                String.class
+            )
+            .getResultList();
+            assertEquals(9, comments.size());
+        });
+    }
+
+    private TSID.Factory tsidFactory(Instant instant) {
+        return TSID.Factory.builder()
+            .withClock(Clock.fixed(instant, ZoneOffset.UTC))
+            .build();
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+
+    @Entity(name = "PostComment")
+    @Table(name = "post_comment")
+    public static class PostComment {
+
+        @Id
+        private String id;
+
+        private String review;
+
+        public String getId() {
+            return id;
+        }
+
+        public PostComment setId(String id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getReview() {
+            return review;
+        }
+
+        public PostComment setReview(String review) {
+            this.review = review;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.hypersistence.utils.hibernate.id;
+
+import io.hypersistence.utils.hibernate.type.basic.BinaryUuidType;
+import io.hypersistence.utils.hibernate.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Type;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class UuidV7Test extends AbstractTest {
+
+    private static final int THREAD_COUNT = 16;
+
+    private static final int UUIDS_PER_THREAD = 10_000;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Test
+    public void testPersist() {
+        List<Post> posts = new ArrayList<>();
+
+        doInJPA(entityManager -> {
+            for (int i = 0; i < 10; i++) {
+                Post post = new Post().setTitle(String.format("Post %d", i + 1));
+                entityManager.persist(post);
+                posts.add(post);
+            }
+        });
+
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            assertNotNull(post.getId());
+            assertEquals(7, post.getId().version());
+            assertEquals(2, post.getId().variant());
+            assertEquals(7, UUID.fromString(post.getCorrelationId()).version());
+            if (i > 0) {
+                assertTrue(post.getId().compareTo(posts.get(i - 1).getId()) > 0);
+            }
+        }
+
+        doInJPA(entityManager -> {
+            Post firstPost = posts.get(0);
+            Post post = entityManager.find(Post.class, firstPost.getId());
+            assertEquals(firstPost.getId(), post.getId());
+            assertEquals(firstPost.getCorrelationId(), post.getCorrelationId());
+
+            List<UUID> ids = entityManager.createQuery(
+                "select p.id from Post p order by p.id", UUID.class)
+            .getResultList();
+            assertEquals(posts.size(), ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(posts.get(i).getId(), ids.get(i));
+            }
+        });
+    }
+
+    @Test
+    public void testInstant() {
+        long beforeMillis = System.currentTimeMillis();
+        UUID uuid = UuidV7Factory.INSTANCE.generate();
+        long afterMillis = System.currentTimeMillis();
+
+        Instant instant = UuidV7Factory.getInstant(uuid);
+        assertFalse(instant.toEpochMilli() < beforeMillis);
+        assertFalse(instant.toEpochMilli() > afterMillis + 1);
+    }
+
+    @Test
+    public void testConcurrentGenerate() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        try {
+            List<Future<UUID[]>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executorService.submit(() -> {
+                    UUID[] uuids = new UUID[UUIDS_PER_THREAD];
+                    awaitOnLatch(startLatch);
+                    for (int j = 0; j < UUIDS_PER_THREAD; j++) {
+                        uuids[j] = UuidV7Factory.INSTANCE.generate();
+                    }
+                    return uuids;
+                }));
+            }
+            startLatch.countDown();
+
+            Set<UUID> uniqueUuids = new HashSet<>();
+            for (Future<UUID[]> future : futures) {
+                UUID[] uuids = future.get();
+                for (int j = 0; j < uuids.length; j++) {
+                    if (j > 0) {
+                        assertTrue(uuids[j].compareTo(uuids[j - 1]) > 0);
+                    }
+                    uniqueUuids.add(uuids[j]);
+                }
+            }
+            assertEquals(THREAD_COUNT * UUIDS_PER_THREAD, uniqueUuids.size());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @UuidV7
+        @Type(BinaryUuidType.class)
+        private UUID id;
+
+        @UuidV7
+        private String correlationId;
+
+        private String title;
+
+        public UUID getId() {
+            return id;
+        }
+
+        public Post setId(UUID id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getCorrelationId() {
+            return correlationId;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
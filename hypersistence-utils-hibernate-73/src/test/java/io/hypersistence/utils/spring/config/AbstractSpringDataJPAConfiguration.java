@@ -60,6 +60,7 @@ public abstract class AbstractSpringDataJPAConfiguration {
                 .create(actualDataSource())
                 .name("DATA_SOURCE_PROXY")
                 .listener(loggingListener)
+                .countQuery()
                 .build();
         return dataSource;
     }
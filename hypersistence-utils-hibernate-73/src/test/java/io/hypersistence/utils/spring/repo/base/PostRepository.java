@@ -1,13 +1,18 @@
 package io.hypersistence.utils.spring.repo.base;
 
+import io.hypersistence.utils.spring.annotation.ReadOnlyQuery;
 import io.hypersistence.utils.spring.domain.Post;
 import io.hypersistence.utils.spring.repository.BaseJpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @author Vlad Mihalcea
  */
 @Repository
 public interface PostRepository extends BaseJpaRepository<Post, Long> {
 
+    @ReadOnlyQuery
+    List<Post> findBySlugStartingWith(String slugPrefix);
 }
@@ -1,25 +1,49 @@
 package io.hypersistence.utils.spring.repo.base;
 
+import io.hypersistence.utils.jdbc.validator.SQLStatementCountValidator;
 import io.hypersistence.utils.spring.domain.Post;
+import io.hypersistence.utils.spring.repository.ReadMode;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.IllegalTransactionStateException;
 import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -61,13 +85,7 @@ public class SpringDataJPABaseTest {
             );
 
             postRepository.persistAllAndFlush(
-                LongStream.range(3, 1000)
-                    .mapToObj(i -> new Post()
-                        .setId(i)
-                        .setTitle(String.format("Post %d", i))
-                        .setSlug(String.format("post-%d", i))
-                    )
-                    .collect(Collectors.toList())
+                newPosts(3, 999)
             );
 
             return null;
@@ -86,6 +104,538 @@ public class SpringDataJPABaseTest {
         transactionTemplate.execute(transactionStatus ->
             postRepository.updateAll(posts)
         );
+
+        // the pending stateless batch is executed when the transaction commits
+        Long rockingPostCount = transactionTemplate.execute(transactionStatus ->
+            entityManager.createQuery(
+                "select count(p) " +
+                "from Post p " +
+                "where p.title like '% rocks!'", Long.class)
+            .getSingleResult()
+        );
+
+        assertEquals(posts.size(), rockingPostCount.intValue());
+    }
+
+    @Test
+    public void testUpdate() {
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, 2)
+            )
+        );
+
+        Post post = postRepository.findById(1L).orElseThrow();
+        post.setTitle("High-Performance Java Persistence");
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            postRepository.update(post);
+            return null;
+        });
+
+        assertEquals(
+            "High-Performance Java Persistence",
+            transactionTemplate.execute(transactionStatus ->
+                postRepository.findById(1L).orElseThrow().getTitle()
+            )
+        );
+    }
+
+    @Test
+    public void testPersistAndMergeAllInChunks() {
+        int postCount = 1000;
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            long persistCount = postRepository.persistAllInChunks(
+                newPosts(1, postCount).stream()
+            );
+
+            assertEquals(postCount, persistCount);
+            // the Persistence Context is cleared after every chunk
+            assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+
+            return null;
+        });
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            long mergeCount = postRepository.mergeAllInChunks(
+                newPosts(1, postCount, i -> String.format("Post %d rocks!", i)).iterator()
+            );
+
+            assertEquals(postCount, mergeCount);
+
+            return null;
+        });
+
+        Long rockingPostCount = transactionTemplate.execute(transactionStatus ->
+            entityManager.createQuery(
+                "select count(p) " +
+                "from Post p " +
+                "where p.title like '% rocks!'", Long.class)
+            .getSingleResult()
+        );
+
+        assertEquals(postCount, rockingPostCount.intValue());
+    }
+
+    @Test
+    public void testMergeAll() {
+        int postCount = 100;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        SQLStatementCountValidator.reset();
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.mergeAllAndFlush(
+                newPosts(1, postCount, i -> String.format("Post %d rocks!", i))
+            )
+        );
+
+        // the existing posts are loaded by a single multi-load query instead of one query per merge
+        SQLStatementCountValidator.assertSelectCount(1);
+        // the UPDATE statements are sent in a single JDBC batch
+        SQLStatementCountValidator.assertUpdateCount(1);
+    }
+
+    @Test
+    public void testInsertAll() {
+        int postCount = 1000;
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            long insertCount = postRepository.insertAllAndFlush(
+                newPosts(1, postCount)
+            );
+
+            assertEquals(postCount, insertCount);
+            // the inserted entities are not attached to the Persistence Context
+            assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+
+            return null;
+        });
+
+        assertEquals(postCount, postRepository.count());
+    }
+
+    @Test
+    public void testCopyAll() {
+        int postCount = 1000;
+
+        long copyCount = transactionTemplate.execute(transactionStatus ->
+            postRepository.copyAll(
+                newPosts(1, postCount, i -> String.format("Post\t%d\\\n", i)).stream()
+            )
+        );
+
+        assertEquals(postCount, copyCount);
+        assertEquals(postCount, postRepository.count());
+
+        Post post = postRepository.findById(1L).orElseThrow();
+        assertEquals("Post\t1\\\n", post.getTitle());
+    }
+
+    @Test
+    public void testInsertAllUnnest() {
+        int postCount = 1000;
+
+        long insertCount = transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAllUnnest(
+                newPosts(1, postCount, i -> String.format("Post \"%d\", {%d}", i, i))
+            )
+        );
+
+        assertEquals(postCount, insertCount);
+        assertEquals(postCount, postRepository.count());
+
+        Post post = postRepository.findById(1L).orElseThrow();
+        assertEquals("Post \"1\", {1}", post.getTitle());
+    }
+
+    @Test
+    @Ignore("Benchmark, run it manually against PostgreSQL")
+    public void testInsertAllUnnestVsBatching() {
+        long nextId = 1;
+        for (int postCount : new int[]{1_000, 10_000, 100_000}) {
+            long batchingMillis = insertPosts(nextId, postCount, postRepository::insertAllAndFlush);
+            nextId += postCount;
+            long unnestMillis = insertPosts(nextId, postCount, postRepository::insertAllUnnest);
+            nextId += postCount;
+
+            LOGGER.info(
+                "Inserting {} posts took {} ms using JDBC batching and {} ms using unnest",
+                postCount,
+                batchingMillis,
+                unnestMillis
+            );
+        }
+
+        assertEquals(nextId - 1, postRepository.count());
+    }
+
+    private long insertPosts(long firstId, int postCount, Function<List<Post>, Long> insertFunction) {
+        List<Post> posts = newPosts(firstId, firstId + postCount - 1);
+
+        long startNanos = System.nanoTime();
+        long insertCount = transactionTemplate.execute(transactionStatus -> insertFunction.apply(posts));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertEquals(postCount, insertCount);
+        return millis;
+    }
+
+    @Test
+    public void testUpdateAll() {
+        int postCount = 1000;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        List<Post> posts = transactionTemplate.execute(transactionStatus ->
+            entityManager.createQuery(
+                "select p " +
+                "from Post p", Post.class)
+            .getResultList()
+        );
+
+        posts.forEach(post -> post.setTitle(post.getTitle() + " rocks!"));
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.updateAllAndFlush(posts)
+        );
+
+        Long rockingPostCount = transactionTemplate.execute(transactionStatus ->
+            entityManager.createQuery(
+                "select count(p) " +
+                "from Post p " +
+                "where p.title like '% rocks!'", Long.class)
+            .getSingleResult()
+        );
+
+        assertEquals(postCount, rockingPostCount.intValue());
+    }
+
+    @Test
+    public void testUpsertAll() {
+        int postCount = 100;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount / 2)
+            )
+        );
+
+        long upsertCount = transactionTemplate.execute(transactionStatus ->
+            postRepository.upsertAllAndFlush(
+                newPosts(1, postCount, i -> String.format("Post %d rocks!", i))
+            )
+        );
+
+        assertEquals(postCount, upsertCount);
+        assertEquals(postCount, postRepository.count());
+
+        Long rockingPostCount = transactionTemplate.execute(transactionStatus ->
+            entityManager.createQuery(
+                "select count(p) " +
+                "from Post p " +
+                "where p.title like '% rocks!'", Long.class)
+            .getSingleResult()
+        );
+
+        assertEquals(postCount, rockingPostCount.intValue());
+    }
+
+    @Test
+    public void testFindAllById() {
+        int postCount = 600;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            assertEquals(3, postRepository.findAllById(List.of(1L, 2L, 3L)).size());
+            assertEquals(50, postRepository.findAllById(
+                LongStream.rangeClosed(1, 50).boxed().collect(Collectors.toList())
+            ).size());
+            // duplicate and missing identifiers are skipped
+            assertEquals(2, postRepository.findAllById(List.of(1L, 1L, 2L, postCount + 1L)).size());
+            assertEquals(0, postRepository.findAllById(List.of()).size());
+
+            // more identifiers than a single padded IN list can hold
+            List<Long> allIds = LongStream.rangeClosed(1, postCount + 1).boxed().collect(Collectors.toList());
+            for (ReadMode readMode : ReadMode.values()) {
+                List<Post> posts = postRepository.findAllById(allIds, readMode);
+                assertEquals(postCount, posts.size());
+                assertEquals(postCount, posts.stream().map(Post::getId).distinct().count());
+            }
+
+            // the entities already managed by the Persistence Context are reused
+            Post post = postRepository.findById(1L).orElseThrow();
+            assertSame(post, postRepository.findAllById(List.of(1L, 2L)).stream()
+                .filter(p -> p.getId() == 1L)
+                .findFirst()
+                .orElseThrow());
+
+            List<Post> orderedPosts = postRepository.findAllByIdOrdered(List.of(3L, postCount + 1L, 1L));
+            assertEquals(3, orderedPosts.size());
+            assertEquals(Long.valueOf(3L), orderedPosts.get(0).getId());
+            assertNull(orderedPosts.get(1));
+            assertSame(post, orderedPosts.get(2));
+
+            return null;
+        });
+    }
+
+    @Test
+    public void testDeleteAllByIdInBatch() {
+        int postCount = 1000;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            postRepository.deleteAllByIdInBatch(
+                LongStream.rangeClosed(1, 300).boxed().collect(Collectors.toList()),
+                128
+            );
+            return null;
+        });
+
+        assertEquals(postCount - 300, postRepository.count());
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            postRepository.deleteAllByIdInChunks(
+                LongStream.rangeClosed(1, postCount).boxed().collect(Collectors.toList()),
+                100
+            );
+            transactionStatus.setRollbackOnly();
+            return null;
+        });
+
+        // the chunks are rolled back along with the caller's transaction
+        assertEquals(postCount - 300, postRepository.count());
+
+        long deleteCount = postRepository.deleteAllByIdInChunks(
+            LongStream.rangeClosed(1, postCount).boxed().collect(Collectors.toList()),
+            100
+        );
+
+        assertEquals(postCount - 300, deleteCount);
+        assertEquals(0, postRepository.count());
+
+        try {
+            postRepository.deleteAllByIdInBatch(List.of(1L), 0);
+            fail("Should throw InvalidDataAccessApiUsageException");
+        } catch (InvalidDataAccessApiUsageException expected) {
+            // the repository translates the IllegalArgumentException
+            assertTrue(expected.getCause() instanceof IllegalArgumentException);
+        }
+
+        try {
+            postRepository.deleteAllByIdInChunks(List.of(1L), -1);
+            fail("Should throw InvalidDataAccessApiUsageException");
+        } catch (InvalidDataAccessApiUsageException expected) {
+            // the repository translates the IllegalArgumentException
+            assertTrue(expected.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testReadModes() {
+        int postCount = 10;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            Session session = entityManager.unwrap(Session.class);
+
+            Post readOnlyPost = postRepository.findById(1L, ReadMode.READ_ONLY).orElseThrow();
+            assertTrue(session.isReadOnly(readOnlyPost));
+
+            List<Post> readOnlyPosts = postRepository.findAllById(List.of(2L, 3L, postCount + 1L), ReadMode.READ_ONLY);
+            assertEquals(2, readOnlyPosts.size());
+            readOnlyPosts.forEach(post -> assertTrue(session.isReadOnly(post)));
+
+            Post statelessPost = postRepository.findById(4L, ReadMode.STATELESS).orElseThrow();
+            assertFalse(session.contains(statelessPost));
+
+            List<Post> statelessPosts = postRepository.findAllById(List.of(5L, 6L, postCount + 1L), ReadMode.STATELESS);
+            assertEquals(2, statelessPosts.size());
+            statelessPosts.forEach(post -> assertFalse(session.contains(post)));
+
+            List<Post> queryPosts = postRepository.findBySlugStartingWith("post-1");
+            assertEquals(2, queryPosts.size());
+            queryPosts.forEach(post -> assertTrue(session.isReadOnly(post)));
+
+            return null;
+        });
+    }
+
+    @Test
+    public void testEstimatedCount() {
+        int postCount = 50;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        transactionTemplate.execute(transactionStatus ->
+            entityManager.createNativeQuery("ANALYZE post").executeUpdate()
+        );
+
+        long estimatedCount = postRepository.estimatedCount(0);
+        assertTrue(
+            String.format("The estimated count [%d] should be close to [%d]", estimatedCount, postCount),
+            Math.abs(estimatedCount - postCount) <= 5
+        );
+
+        // the statistics are not updated after these inserts, so only the exact count finds them
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(postCount + 1, postCount + 10)
+            )
+        );
+
+        assertEquals(postCount + 10, postRepository.estimatedCount(Long.MAX_VALUE));
+        //Below the default threshold, the exact count is returned
+        assertEquals(postCount + 10, postRepository.estimatedCount());
+    }
+
+    @Test
+    public void testFindPage() {
+        int postCount = 25;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount, i -> String.format("Post %02d", i))
+            )
+        );
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            SQLStatementCountValidator.reset();
+            Page<Post> page = postRepository.findPage(PageRequest.of(1, 10));
+            SQLStatementCountValidator.assertSelectCount(1);
+
+            assertEquals(postCount, page.getTotalElements());
+            assertEquals(3, page.getTotalPages());
+            assertEquals(
+                LongStream.rangeClosed(11, 20).boxed().collect(Collectors.toList()),
+                page.getContent().stream().map(Post::getId).collect(Collectors.toList())
+            );
+
+            Page<Post> sortedPage = postRepository.findPage(PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "title")));
+            assertEquals(postCount, sortedPage.getTotalElements());
+            assertEquals("Post 25", sortedPage.getContent().get(0).getTitle());
+
+            Page<Post> emptyPage = postRepository.findPage(PageRequest.of(5, 10));
+            assertTrue(emptyPage.getContent().isEmpty());
+            assertEquals(postCount, emptyPage.getTotalElements());
+
+            Page<Post> unpagedPage = postRepository.findPage(Pageable.unpaged());
+            assertEquals(postCount, unpagedPage.getContent().size());
+            assertEquals(postCount, unpagedPage.getTotalElements());
+            assertEquals(Long.valueOf(1L), unpagedPage.getContent().get(0).getId());
+
+            return null;
+        });
+    }
+
+    @Test
+    public void testStreamAll() {
+        int postCount = 100;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            Session session = entityManager.unwrap(Session.class);
+            try (Stream<Post> posts = postRepository.streamAll(
+                    (root, query, builder) -> builder.like(root.get("slug"), "post-%"),
+                    10
+                )) {
+                posts.forEach(post -> {
+                    // only the current window of streamed entities is managed
+                    assertTrue(session.getStatistics().getEntityCount() <= 10);
+                });
+            }
+
+            try (Stream<Post> posts = postRepository.streamAll(
+                    "select p from Post p where p.id > :id",
+                    Map.of("id", 50L),
+                    10
+                )) {
+                assertEquals(postCount - 50, posts.count());
+            }
+
+            return null;
+        });
+
+        // the stream is read lazily, so it cannot outlive the transaction
+        try {
+            postRepository.streamAll("select p from Post p", Map.of(), 10);
+            fail("Should throw IllegalTransactionStateException");
+        } catch (IllegalTransactionStateException expected) {
+        }
+    }
+
+    @Test
+    public void testFindPageAfter() {
+        int postCount = 100;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount, i -> String.format("Post %d", i % 10))
+            )
+        );
+
+        List<Post> posts = new ArrayList<>();
+        List<Post> page = postRepository.findPageAfter(null, 30);
+        while (!page.isEmpty()) {
+            posts.addAll(page);
+            page = postRepository.findPageAfter(page.get(page.size() - 1).getId(), 30);
+        }
+        assertEquals(postCount, posts.size());
+        assertEquals(Long.valueOf(postCount), posts.get(postCount - 1).getId());
+
+        posts.clear();
+        page = postRepository.findPageAfter("title", null, null, 30);
+        while (!page.isEmpty()) {
+            posts.addAll(page);
+            Post lastPost = page.get(page.size() - 1);
+            page = postRepository.findPageAfter("title", lastPost.getTitle(), lastPost.getId(), 30);
+        }
+        assertEquals(postCount, posts.size());
+        assertEquals(Long.valueOf(10L), posts.get(0).getId());
+        assertEquals(Long.valueOf(99L), posts.get(postCount - 1).getId());
+
+        try {
+            postRepository.findPageAfter("title > '' or e.id", null, null, 30);
+            fail("Should throw InvalidDataAccessApiUsageException");
+        } catch (InvalidDataAccessApiUsageException expected) {
+            // the repository translates the IllegalArgumentException
+            assertTrue(expected.getCause() instanceof IllegalArgumentException);
+        }
     }
 
     @Test
@@ -109,6 +659,65 @@ public class SpringDataJPABaseTest {
         });
     }
 
+    @Test
+    public void testLockNextAvailable() throws Exception {
+        int postCount = 10;
+
+        transactionTemplate.execute(transactionStatus ->
+            postRepository.insertAll(
+                newPosts(1, postCount)
+            )
+        );
+
+        Specification<Post> pending = (root, query, builder) -> builder.like(root.get("title"), "Post%");
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+                List<Post> posts = postRepository.lockNextAvailable(3, pending);
+                assertEquals(List.of(1L, 2L, 3L), posts.stream().map(Post::getId).collect(Collectors.toList()));
+
+                //The rows locked by the first worker are skipped by the second one
+                List<Long> otherPostIds = executeAndWait(executorService, () ->
+                    transactionTemplate.execute(otherTransactionStatus ->
+                        postRepository.lockNextAvailable(3, pending)
+                            .stream()
+                            .map(Post::getId)
+                            .collect(Collectors.toList())
+                    )
+                );
+                assertEquals(List.of(4L, 5L, 6L), otherPostIds);
+
+                return null;
+            });
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            List<Post> posts = postRepository.lockAllById(List.of(9L, 2L, 5L, 2L), LockModeType.PESSIMISTIC_WRITE);
+
+            assertEquals(List.of(2L, 5L, 9L), posts.stream().map(Post::getId).collect(Collectors.toList()));
+            posts.forEach(post -> assertEquals(LockModeType.PESSIMISTIC_WRITE, entityManager.getLockMode(post)));
+
+            return null;
+        });
+
+        try {
+            postRepository.lockAllById(List.of(1L), LockModeType.PESSIMISTIC_WRITE);
+            fail("Should throw IllegalTransactionStateException");
+        } catch (IllegalTransactionStateException expected) {
+        }
+    }
+
+    private <R> R executeAndWait(ExecutorService executorService, Callable<R> callable) {
+        try {
+            return executorService.submit(callable).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Test
     public void testGetReferenceById() {
         transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
@@ -132,5 +741,19 @@ public class SpringDataJPABaseTest {
         } catch (Exception expected) {
         }
     }
+
+    private List<Post> newPosts(long firstId, long lastId) {
+        return newPosts(firstId, lastId, i -> String.format("Post %d", i));
+    }
+
+    private List<Post> newPosts(long firstId, long lastId, LongFunction<String> titleFunction) {
+        return LongStream.rangeClosed(firstId, lastId)
+            .mapToObj(i -> new Post()
+                .setId(i)
+                .setTitle(titleFunction.apply(i))
+                .setSlug(String.format("post-%d", i))
+            )
+            .collect(Collectors.toList());
+    }
 }
 
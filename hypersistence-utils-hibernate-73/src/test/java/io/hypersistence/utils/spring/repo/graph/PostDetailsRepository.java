@@ -0,0 +1,13 @@
+package io.hypersistence.utils.spring.repo.graph;
+
+import io.hypersistence.utils.spring.repo.graph.domain.PostDetails;
+import io.hypersistence.utils.spring.repository.BaseJpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * @author Vlad Mihalcea
+ */
+@Repository
+public interface PostDetailsRepository extends BaseJpaRepository<PostDetails, Long> {
+
+}
@@ -0,0 +1,166 @@
+package io.hypersistence.utils.spring.repo.graph;
+
+import io.hypersistence.utils.jdbc.validator.SQLStatementCountValidator;
+import io.hypersistence.utils.spring.repo.graph.domain.Post;
+import io.hypersistence.utils.spring.repo.graph.domain.PostComment;
+import io.hypersistence.utils.spring.repo.graph.domain.PostDetails;
+import io.hypersistence.utils.spring.repo.graph.domain.PostTag;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = SpringDataJPAGraphConfiguration.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class SpringDataJPAGraphTest {
+
+    private static final int COMMENT_COUNT = 4;
+
+    private static final int TAG_COUNT = 2;
+
+    protected final Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostDetailsRepository postDetailsRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void testFindAllByIdWithGraph() {
+        int postCount = 3;
+
+        persistPosts(postCount);
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            SQLStatementCountValidator.reset();
+
+            //The posts, comments, and tags are fetched by one query each, instead of a Cartesian Product
+            List<Post> posts = postRepository.findAllByIdWithGraph(List.of(1L, 2L, postCount + 1L), "Post.commentsAndTags");
+            SQLStatementCountValidator.assertSelectCount(3);
+
+            assertEquals(2, posts.size());
+            for (Post post : posts) {
+                assertTrue(Hibernate.isInitialized(post.getComments()));
+                assertTrue(Hibernate.isInitialized(post.getTags()));
+                assertEquals(COMMENT_COUNT, post.getComments().size());
+                assertEquals(TAG_COUNT, post.getTags().size());
+            }
+            SQLStatementCountValidator.assertSelectCount(3);
+
+            return null;
+        });
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            EntityGraph<Post> entityGraph = entityManager.createEntityGraph(Post.class);
+            entityGraph.addSubgraph("comments").addAttributeNodes("post");
+
+            SQLStatementCountValidator.reset();
+
+            List<Post> posts = postRepository.findAllByIdWithGraph(List.of(3L), entityGraph);
+            SQLStatementCountValidator.assertSelectCount(2);
+
+            assertEquals(1, posts.size());
+            Post post = posts.get(0);
+            assertTrue(Hibernate.isInitialized(post.getComments()));
+            assertEquals(COMMENT_COUNT, post.getComments().size());
+            assertFalse(Hibernate.isInitialized(post.getTags()));
+
+            return null;
+        });
+    }
+
+    @Test
+    public void testFindAllByIdWithNestedGraph() {
+        int postCount = 3;
+
+        persistPosts(postCount);
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            for (long i = 1; i <= postCount; i++) {
+                postDetailsRepository.persist(
+                    new PostDetails()
+                        .setPost(entityManager.getReference(Post.class, i))
+                        .setCreatedBy("Vlad Mihalcea")
+                );
+            }
+            return null;
+        });
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            EntityGraph<PostDetails> entityGraph = entityManager.createEntityGraph(PostDetails.class);
+            entityGraph.addSubgraph("post").addAttributeNodes("comments", "tags");
+
+            SQLStatementCountValidator.reset();
+
+            //The collections nested in the post subgraph are fetched by one query each, too
+            List<PostDetails> postDetailsList = postDetailsRepository.findAllByIdWithGraph(List.of(1L, 2L), entityGraph);
+            SQLStatementCountValidator.assertSelectCount(3);
+
+            assertEquals(2, postDetailsList.size());
+            for (PostDetails postDetails : postDetailsList) {
+                Post post = postDetails.getPost();
+                assertTrue(Hibernate.isInitialized(post));
+                assertTrue(Hibernate.isInitialized(post.getComments()));
+                assertTrue(Hibernate.isInitialized(post.getTags()));
+                assertEquals(COMMENT_COUNT, post.getComments().size());
+                assertEquals(TAG_COUNT, post.getTags().size());
+            }
+            SQLStatementCountValidator.assertSelectCount(3);
+
+            return null;
+        });
+    }
+
+    private void persistPosts(int postCount) {
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            for (long i = 1; i <= postCount; i++) {
+                Post post = new Post()
+                    .setId(i)
+                    .setTitle(String.format("Post %d", i));
+                for (long j = 1; j <= COMMENT_COUNT; j++) {
+                    post.addComment(
+                        new PostComment()
+                            .setId(i * 100 + j)
+                            .setReview(String.format("Comment %d", j))
+                    );
+                }
+                for (long j = 1; j <= TAG_COUNT; j++) {
+                    post.addTag(
+                        new PostTag()
+                            .setId(i * 100 + j)
+                            .setName(String.format("Tag %d", j))
+                    );
+                }
+                postRepository.persist(post);
+            }
+            return null;
+        });
+    }
+}
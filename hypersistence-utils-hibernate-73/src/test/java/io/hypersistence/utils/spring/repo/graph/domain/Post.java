@@ -0,0 +1,75 @@
+package io.hypersistence.utils.spring.repo.graph.domain;
+
+import jakarta.persistence.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "post")
+@NamedEntityGraph(
+    name = "Post.commentsAndTags",
+    attributeNodes = {
+        @NamedAttributeNode("comments"),
+        @NamedAttributeNode("tags")
+    }
+)
+public class Post {
+
+    @Id
+    private Long id;
+
+    private String title;
+
+    @OneToMany(
+        mappedBy = "post",
+        cascade = CascadeType.ALL,
+        orphanRemoval = true
+    )
+    private final List<PostComment> comments = new ArrayList<>();
+
+    @OneToMany(
+        mappedBy = "post",
+        cascade = CascadeType.ALL,
+        orphanRemoval = true
+    )
+    private final List<PostTag> tags = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public Post setId(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Post setTitle(String title) {
+        this.title = title;
+        return this;
+    }
+
+    public List<PostComment> getComments() {
+        return comments;
+    }
+
+    public List<PostTag> getTags() {
+        return tags;
+    }
+
+    public Post addComment(PostComment comment) {
+        comment.setPost(this);
+        comments.add(comment);
+        return this;
+    }
+
+    public Post addTag(PostTag tag) {
+        tag.setPost(this);
+        tags.add(tag);
+        return this;
+    }
+}
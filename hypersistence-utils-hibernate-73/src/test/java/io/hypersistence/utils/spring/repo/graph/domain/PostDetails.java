@@ -0,0 +1,44 @@
+package io.hypersistence.utils.spring.repo.graph.domain;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "post_details")
+public class PostDetails {
+
+    @Id
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @MapsId
+    private Post post;
+
+    private String createdBy;
+
+    public Long getId() {
+        return id;
+    }
+
+    public PostDetails setId(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    public PostDetails setPost(Post post) {
+        this.post = post;
+        return this;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public PostDetails setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+        return this;
+    }
+}
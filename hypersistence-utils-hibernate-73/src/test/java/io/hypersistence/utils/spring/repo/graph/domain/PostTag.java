@@ -0,0 +1,44 @@
+package io.hypersistence.utils.spring.repo.graph.domain;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "post_tag")
+public class PostTag {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "post_id")
+    private Post post;
+
+    private String name;
+
+    public Long getId() {
+        return id;
+    }
+
+    public PostTag setId(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    public PostTag setPost(Post post) {
+        this.post = post;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public PostTag setName(String name) {
+        this.name = name;
+        return this;
+    }
+}
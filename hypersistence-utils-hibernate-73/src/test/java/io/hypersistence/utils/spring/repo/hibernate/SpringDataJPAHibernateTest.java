@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 /**
@@ -118,5 +119,23 @@ public class SpringDataJPAHibernateTest {
             LOGGER.warn("You shouldn't call the JpaRepository findAll method!");
         }
     }
-}
 
+    @Test
+    public void testPersistAllInChunks() {
+        int postCount = 1000;
+
+        long persistCount = transactionTemplate.execute(transactionStatus ->
+            postRepository.persistAllInChunks(
+                LongStream.rangeClosed(1, postCount)
+                    .mapToObj(i -> new Post()
+                        .setId(i)
+                        .setTitle(String.format("Post %d", i))
+                        .setSlug(String.format("post-%d", i))
+                    )
+            )
+        );
+
+        assertEquals(postCount, persistCount);
+        assertEquals(postCount, postRepository.count());
+    }
+}